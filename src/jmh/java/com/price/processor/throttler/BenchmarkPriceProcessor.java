@@ -0,0 +1,53 @@
+package com.price.processor.throttler;
+
+import com.price.processor.PriceProcessor;
+
+/**
+ * PriceProcessor implementation for benchmarking purpose
+ * Keeps the last processed rate to let a benchmark wait for the delivery
+ */
+final class BenchmarkPriceProcessor implements PriceProcessor {
+
+    private final long sleepInMilli;
+    private volatile double lastRate = Double.NaN;
+
+    /**
+     * @param pauseInProcessingInMilliseconds defines the delay in milliseconds to process request
+     */
+    public BenchmarkPriceProcessor(long pauseInProcessingInMilliseconds) {
+        sleepInMilli = pauseInProcessingInMilliseconds;
+    }
+
+    @Override
+    public void onPrice(String ccyPair, double rate) {
+        if (sleepInMilli != 0) {
+            try {
+                Thread.sleep(sleepInMilli);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        lastRate = rate;
+    }
+
+    /**
+     * Spins until the rate is processed
+     * @param rate the rate to wait for
+     */
+    public void awaitRate(double rate) {
+        while (lastRate != rate) {
+            Thread.onSpinWait();
+        }
+    }
+
+    @Override
+    public void subscribe(PriceProcessor priceProcessor) {
+        //Left it empty on purpose
+    }
+
+    @Override
+    public void unsubscribe(PriceProcessor priceProcessor) {
+        //Left it empty on purpose
+    }
+}
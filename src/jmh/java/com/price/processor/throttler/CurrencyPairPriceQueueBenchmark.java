@@ -0,0 +1,47 @@
+package com.price.processor.throttler;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the checks of the drain whether the queue has a price to deliver
+ * while the producer keeps offering to the queue of the same subscriber
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CurrencyPairPriceQueueBenchmark {
+
+    private final CurrencyPairPriceQueue queue = new CurrencyPairPriceQueue(new DeliveryFreqRankThrottling());
+    private double rate;
+
+    @Benchmark
+    @Group("offerWhileCheckingEmpty")
+    public void offer() {
+        queue.offer(0, ++rate);
+    }
+
+    @Benchmark
+    @Group("offerWhileCheckingEmpty")
+    public boolean isEmpty() {
+        return queue.isEmpty();
+    }
+
+    /**
+     * The drain which found nothing to deliver polls again, i.e. the busy spinning subscriber
+     */
+    @Benchmark
+    @Group("pollEmpty")
+    public boolean pollEmpty(Target target) {
+        return queue.poll(target.pairPrice);
+    }
+
+    @State(Scope.Thread)
+    public static class Target {
+        final MutableCurrencyPairPrice pairPrice = new MutableCurrencyPairPrice();
+    }
+}
@@ -0,0 +1,57 @@
+package com.price.processor.throttler;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost to push a price and to select the next pair price to deliver
+ * depending on the number of pairs kept by the strategy
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DeliveryFreqRankThrottlingBenchmark {
+
+    @Param({"10", "1000", "100000"})
+    private int pairsCount;
+
+    private final MutableCurrencyPairPrice pairPrice = new MutableCurrencyPairPrice();
+    private DeliveryFreqRankThrottling strategy;
+    private int nextPair;
+
+    @Setup
+    public void setUp() {
+        strategy = new DeliveryFreqRankThrottling();
+
+        for (int i = 0; i < pairsCount; i++) {
+            // every pair gets its own income frequency to make the ranks differ
+            for (int j = 0; j <= i % 7; j++) {
+                strategy.pushItem(i, i);
+            }
+        }
+    }
+
+    /**
+     * The popped pair ticks again right away, so all the pairs stay pending for delivery
+     */
+    @Benchmark
+    public double popAndPush() {
+        strategy.popItem(pairPrice);
+        strategy.pushItem(pairPrice.getPairId(), pairPrice.getRate());
+
+        return pairPrice.getRate();
+    }
+
+    /**
+     * All the pairs stay pending for delivery, a tick only changes the rank of its pair
+     */
+    @Benchmark
+    public void push() {
+        strategy.pushItem(nextPair, nextPair);
+        nextPair = nextPair + 1 == pairsCount ? 0 : nextPair + 1;
+    }
+}
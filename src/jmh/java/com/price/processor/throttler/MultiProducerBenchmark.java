@@ -0,0 +1,91 @@
+package com.price.processor.throttler;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Measures the throughput of <c>PriceThrottler.onPrice</c> called by 1, 4 and 16 concurrent producers
+ * Every producer ticks its own pairs, as a feed of venue does
+ * The ingest modes are compared, in <c>SHARDED_FAN_OUT</c> mode the producers write every price to the board of each shard
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MultiProducerBenchmark {
+
+    private static final int PAIRS_PER_PRODUCER = 8;
+
+    @Param({"10"})
+    private int subscribersCount;
+
+    @Param({"QUEUE_PER_SUBSCRIBER", "SHARED_PRICE_BOARD", "SHARDED_FAN_OUT"})
+    private IngestMode ingestMode;
+
+    @Param({"1", "16"})
+    private int priceBoardShardsCount;
+
+    private final AtomicInteger producersCount = new AtomicInteger();
+    private PriceThrottler throttler;
+
+    @State(Scope.Thread)
+    public static class Producer {
+
+        private int[] pairIds;
+        private int nextPair;
+        private double rate;
+
+        @Setup
+        public void setUp(MultiProducerBenchmark benchmark) {
+            int producerIndex = benchmark.producersCount.getAndIncrement();
+            pairIds = new int[PAIRS_PER_PRODUCER];
+
+            for (int i = 0; i < PAIRS_PER_PRODUCER; i++) {
+                pairIds[i] = benchmark.throttler.getPairRegistry().getPairId("PAIR" + producerIndex + "_" + i);
+            }
+        }
+
+        void tick(PriceThrottler throttler) {
+            throttler.onPrice(pairIds[nextPair], ++rate);
+            nextPair = nextPair + 1 == pairIds.length ? 0 : nextPair + 1;
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        throttler = new PriceThrottler(new ThrottlerSettings()
+                .setIngestMode(ingestMode)
+                .setPriceBoardShardsCount(priceBoardShardsCount));
+
+        for (int i = 0; i < subscribersCount; i++) {
+            throttler.subscribe(new BenchmarkPriceProcessor(0));
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        throttler.close();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void oneProducer(Producer producer) {
+        producer.tick(throttler);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void fourProducers(Producer producer) {
+        producer.tick(throttler);
+    }
+
+    @Benchmark
+    @Threads(16)
+    public void sixteenProducers(Producer producer) {
+        producer.tick(throttler);
+    }
+}
@@ -0,0 +1,62 @@
+package com.price.processor.throttler;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the producer side throughput of <c>PriceThrottler.onPrice</c> depending on the number of subscribers
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PriceThrottlerBenchmark {
+
+    private static final String[] CCY_PAIRS = {"EURUSD", "USDRUB", "EURRUB", "GBPUSD", "USDJPY", "USDCHF", "AUDUSD", "NZDUSD"};
+
+    @Param({"1", "10", "200"})
+    private int subscribersCount;
+
+    @Param({"QUEUE_PER_SUBSCRIBER", "SHARED_PRICE_BOARD"})
+    private IngestMode ingestMode;
+
+    private PriceThrottler throttler;
+    private int[] pairIds;
+    private int nextPair;
+    private double rate;
+
+    @Setup
+    public void setUp() {
+        throttler = new PriceThrottler(new ThrottlerSettings().setIngestMode(ingestMode));
+
+        for (int i = 0; i < subscribersCount; i++) {
+            throttler.subscribe(new BenchmarkPriceProcessor(0));
+        }
+
+        pairIds = new int[CCY_PAIRS.length];
+
+        for (int i = 0; i < CCY_PAIRS.length; i++) {
+            pairIds[i] = throttler.getPairRegistry().getPairId(CCY_PAIRS[i]);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        throttler.close();
+    }
+
+    @Benchmark
+    public void onPrice() {
+        throttler.onPrice(CCY_PAIRS[nextPair], ++rate);
+        nextPair = nextPair + 1 == CCY_PAIRS.length ? 0 : nextPair + 1;
+    }
+
+    @Benchmark
+    public void onPriceByPairId() {
+        throttler.onPrice(pairIds[nextPair], ++rate);
+        nextPair = nextPair + 1 == pairIds.length ? 0 : nextPair + 1;
+    }
+}
@@ -0,0 +1,56 @@
+package com.price.processor.throttler;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the throughput of <c>PriceThrottler.onPrice</c> with 200 subscribers split over 1, 2, 4 and 8 fan-out shards
+ * compared to the producer offering every price to the queue of each subscriber
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ShardedFanOutBenchmark {
+
+    private static final int SUBSCRIBERS_COUNT = 200;
+    private static final int PAIRS_COUNT = 64;
+
+    @Param({"0", "1", "2", "4", "8"})
+    private int fanOutShardsCount;
+
+    private PriceThrottler throttler;
+    private int nextPair;
+    private double rate;
+
+    @Setup
+    public void setUp() {
+        var settings = fanOutShardsCount > 0
+                ? new ThrottlerSettings().setIngestMode(IngestMode.SHARDED_FAN_OUT).setFanOutShardsCount(fanOutShardsCount)
+                : new ThrottlerSettings().setIngestMode(IngestMode.QUEUE_PER_SUBSCRIBER);
+
+        throttler = new PriceThrottler(settings);
+
+        for (int i = 0; i < SUBSCRIBERS_COUNT; i++) {
+            throttler.subscribe(new BenchmarkPriceProcessor(0));
+        }
+
+        for (int i = 0; i < PAIRS_COUNT; i++) {
+            throttler.getPairRegistry().getPairId("PAIR" + i);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        throttler.close();
+    }
+
+    @Benchmark
+    public void onPrice() {
+        throttler.onPrice(nextPair, ++rate);
+        nextPair = nextPair + 1 == PAIRS_COUNT ? 0 : nextPair + 1;
+    }
+}
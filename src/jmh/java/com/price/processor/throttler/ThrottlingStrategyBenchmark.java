@@ -0,0 +1,60 @@
+package com.price.processor.throttler;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the cost of built-in throttling strategies to push a price and to select the next pair price to deliver
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ThrottlingStrategyBenchmark {
+
+    @Param({"RANK", "ROUND_ROBIN", "LATEST_WINS", "WEIGHTED"})
+    private String strategyName;
+
+    @Param({"10", "1000", "100000"})
+    private int pairsCount;
+
+    private final MutableCurrencyPairPrice pairPrice = new MutableCurrencyPairPrice();
+    private ThrottlingStrategy strategy;
+
+    @Setup
+    public void setUp() {
+        strategy = newStrategy(strategyName);
+
+        for (int i = 0; i < pairsCount; i++) {
+            strategy.pushItem(i, i);
+        }
+    }
+
+    /**
+     * The popped pair ticks again right away, so all the pairs stay pending for delivery
+     */
+    @Benchmark
+    public double popAndPush() {
+        strategy.popItem(pairPrice);
+        strategy.pushItem(pairPrice.getPairId(), pairPrice.getRate());
+
+        return pairPrice.getRate();
+    }
+
+    private static ThrottlingStrategy newStrategy(String strategyName) {
+        switch (strategyName) {
+            case "ROUND_ROBIN":
+                return new RoundRobinThrottling();
+            case "LATEST_WINS":
+                return new LatestWinsThrottling();
+            case "WEIGHTED":
+                return new WeightedPriorityThrottling(pairId -> 1 + pairId % 3);
+            case "RANK":
+            default:
+                return new DeliveryFreqRankThrottling();
+        }
+    }
+}
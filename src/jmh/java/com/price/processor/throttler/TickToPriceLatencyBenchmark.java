@@ -0,0 +1,76 @@
+package com.price.processor.throttler;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the latency distribution from <c>PriceThrottler.onPrice</c> call
+ * till the price is processed by a fast subscriber.
+ * Fast subscribers might be mixed with slow ones to show whether the slow subscribers impact the fast ones
+ * The probe subscriber might wait for prices actively to save the thread handoff
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TickToPriceLatencyBenchmark {
+
+    private static final long SLOW_SUBSCRIBER_DELAY_IN_MILLI = 5;
+
+    @Param({"1", "10", "200"})
+    private int fastSubscribersCount;
+
+    @Param({"0", "10"})
+    private int slowSubscribersCount;
+
+    @Param({"QUEUE_PER_SUBSCRIBER", "SHARED_PRICE_BOARD"})
+    private IngestMode ingestMode;
+
+    @Param({"DEFAULT", "SPIN_THEN_YIELD", "BUSY_SPIN"})
+    private String probeWaitStrategy;
+
+    private PriceThrottler throttler;
+    private BenchmarkPriceProcessor probe;
+    private double rate;
+
+    @Setup
+    public void setUp() {
+        throttler = new PriceThrottler(new ThrottlerSettings().setIngestMode(ingestMode));
+        probe = new BenchmarkPriceProcessor(0);
+        throttler.subscribe(probe, new SubscriptionSettings().setWaitStrategy(newWaitStrategy(probeWaitStrategy)));
+
+        for (int i = 1; i < fastSubscribersCount; i++) {
+            throttler.subscribe(new BenchmarkPriceProcessor(0));
+        }
+
+        for (int i = 0; i < slowSubscribersCount; i++) {
+            throttler.subscribe(new BenchmarkPriceProcessor(SLOW_SUBSCRIBER_DELAY_IN_MILLI));
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        throttler.close();
+    }
+
+    @Benchmark
+    public void tickToOnPrice() {
+        throttler.onPrice("EURUSD", ++rate);
+        probe.awaitRate(rate);
+    }
+
+    private static WaitStrategy newWaitStrategy(String waitStrategyName) {
+        switch (waitStrategyName) {
+            case "BUSY_SPIN":
+                return WaitStrategies.busySpin();
+            case "SPIN_THEN_YIELD":
+                return WaitStrategies.spinThenYield(1_000);
+            case "DEFAULT":
+            default:
+                return null;
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.price.processor.throttler;
+
+import com.price.processor.PriceProcessor;
+
+/**
+ * The subscriber which is able to process the prices of many currency pairs at once
+ * <c>PriceThrottler</c> detects it on subscribe and delivers all the pending prices in one call
+ */
+public interface BatchPriceProcessor extends PriceProcessor {
+
+    /**
+     * Processes the batch of the latest prices, every currency pair is in the batch at most once
+     * The batch is reused by throttler and is valid only during the call
+     * @param prices the <c>PriceBatch</c> instance
+     */
+    void onPrices(PriceBatch prices);
+}
@@ -0,0 +1,84 @@
+package com.price.processor.throttler;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Wakes up the idle subscriptions when prices are published to the <c>ShardedPriceBoard</c>
+ * Runs on its own thread, so the producer only signals it and the cost of publishing
+ * does not depend on the number of subscribers
+ */
+final class BoardSubscriptionNotifier implements AutoCloseable {
+
+    private static final long CLOSE_TIMEOUT_MILLIS = 1_000;
+
+    private final ShardedPriceBoard board;
+    private final SubscriptionArray subscriptions;
+    private final Thread thread;
+    private volatile boolean parked;
+    private volatile boolean closed;
+
+    /**
+     * @param board the board to watch
+     * @param subscriptions the subscriptions to wake up
+     */
+    public BoardSubscriptionNotifier(ShardedPriceBoard board, SubscriptionArray subscriptions) {
+        this.board = board;
+        this.subscriptions = subscriptions;
+        thread = ThreadFactories.newDaemonThreadFactory("price-throttler-notifier-").newThread(this::notifyLoop);
+        thread.start();
+    }
+
+    /**
+     * Signals the prices are published, is called by producer after <c>ShardedPriceBoard.publish</c>
+     */
+    public void signal() {
+        if (parked) {
+            LockSupport.unpark(thread);
+        }
+    }
+
+    /**
+     * Stops the notifier after the subscriptions are woken up for the prices published so far
+     */
+    @Override
+    public void close() {
+        closed = true;
+        LockSupport.unpark(thread);
+
+        try {
+            thread.join(CLOSE_TIMEOUT_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void notifyLoop() {
+        long notifiedSequence = board.getPublishedSequence();
+
+        while (true) {
+            long publishedSequence = board.getPublishedSequence();
+
+            if (publishedSequence != notifiedSequence) {
+                notifiedSequence = publishedSequence;
+
+                for (var subscription : subscriptions.get()) {
+                    subscription.wakeUp();
+                }
+
+                continue;
+            }
+
+            if (closed) {
+                return;
+            }
+
+            parked = true;
+
+            if (board.getPublishedSequence() == notifiedSequence && !closed) {
+                LockSupport.park(this);
+            }
+
+            parked = false;
+        }
+    }
+}
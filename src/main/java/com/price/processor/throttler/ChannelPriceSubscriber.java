@@ -0,0 +1,156 @@
+package com.price.processor.throttler;
+
+import com.price.processor.PriceProcessor;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Implements the subscriber which writes the throttled prices as <c>PriceFrames</c> to the byte channel,
+ * i.e. the socket of the subscriber living in another process
+ * The prices are conflated by the queue of subscriber while the write is blocked by the slow remote reader,
+ * so nothing but the latest price per pair is buffered at the channel boundary
+ * The batch of pending prices is encoded into the reused buffer and written with the single call
+ * If the channel fails it is closed and the subscriber unsubscribes itself
+ */
+final class ChannelPriceSubscriber implements BatchPriceProcessor {
+
+    private final static Logger logger = LogManager.getLogger(ChannelPriceSubscriber.class);
+
+    private static final int INITIAL_BUFFER_CAPACITY = 4096;
+    private static final int INITIAL_PAIRS_CAPACITY = 64;
+
+    private final WritableByteChannel channel;
+    private final PriceThrottler throttler;
+    private final CurrencyPairRegistry pairRegistry;
+
+    private ByteBuffer buffer = ByteBuffer.allocateDirect(INITIAL_BUFFER_CAPACITY);
+    private boolean[] sentPairs = new boolean[INITIAL_PAIRS_CAPACITY];
+
+    /**
+     * @param channel the blocking channel to write the prices to
+     * @param throttler the <c>PriceThrottler</c> the subscriber is subscribed to
+     * @param pairRegistry the registry to resolve currency pairs
+     */
+    public ChannelPriceSubscriber(WritableByteChannel channel, PriceThrottler throttler, CurrencyPairRegistry pairRegistry) {
+        this.channel = channel;
+        this.throttler = throttler;
+        this.pairRegistry = pairRegistry;
+    }
+
+    /**
+     * Is called by the drain only
+     */
+    @Override
+    public void onPrices(PriceBatch prices) {
+        buffer.clear();
+
+        for (int i = 0; i < prices.size(); i++) {
+            putPrice(prices.getPairId(i), prices.getCcyPair(i), prices.getRate(i));
+        }
+
+        write();
+    }
+
+    /**
+     * Is called by the drain only
+     */
+    @Override
+    public void onPrice(String ccyPair, double rate) {
+        buffer.clear();
+        putPrice(pairRegistry.getPairId(ccyPair), ccyPair, rate);
+        write();
+    }
+
+    /**
+     * Whether the subscriber writes to the channel
+     * @return True if the channel is open
+     */
+    public boolean isOpen() {
+        return channel.isOpen();
+    }
+
+    /**
+     * Closes the channel, the remote reader gets the end of stream
+     */
+    public void close() {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            logger.warn(this + " has failed to close the channel", e);
+        }
+    }
+
+    private void putPrice(int pairId, String ccyPair, double rate) {
+        if (pairId >= sentPairs.length) {
+            sentPairs = Arrays.copyOf(sentPairs, Math.max(pairId + 1, sentPairs.length * 2));
+        }
+
+        if (!sentPairs[pairId]) {
+            putPair(pairId, ccyPair);
+            sentPairs[pairId] = true;
+        }
+
+        ensureRemaining(PriceFrames.PRICE_FRAME_SIZE);
+        buffer.put(PriceFrames.PRICE_FRAME)
+                .putInt(pairId)
+                .putDouble(rate);
+    }
+
+    private void putPair(int pairId, String ccyPair) {
+        var name = ccyPair.getBytes(StandardCharsets.US_ASCII);
+
+        if (name.length > PriceFrames.MAX_NAME_LENGTH) {
+            throw new IllegalArgumentException("The currency pair " + ccyPair + " is too long to be sent");
+        }
+
+        ensureRemaining(PriceFrames.PAIR_FRAME_HEADER_SIZE + name.length);
+        buffer.put(PriceFrames.PAIR_FRAME)
+                .putInt(pairId)
+                .putShort((short) name.length)
+                .put(name);
+    }
+
+    private void ensureRemaining(int size) {
+        if (buffer.remaining() < size) {
+            var grown = ByteBuffer.allocateDirect(Math.max(buffer.capacity() * 2, buffer.position() + size));
+            buffer.flip();
+            grown.put(buffer);
+            buffer = grown;
+        }
+    }
+
+    private void write() {
+        buffer.flip();
+
+        try {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        } catch (IOException e) {
+            logger.warn(this + " has failed to write the prices, the subscriber is unsubscribed", e);
+            close();
+            throttler.unsubscribe(this);
+        }
+    }
+
+    @Override
+    public void subscribe(PriceProcessor priceProcessor) {
+        //Left it empty on purpose
+    }
+
+    @Override
+    public void unsubscribe(PriceProcessor priceProcessor) {
+        //Left it empty on purpose
+    }
+
+    @Override
+    public String toString() {
+        return "Channel subscriber of " + channel;
+    }
+}
@@ -0,0 +1,208 @@
+package com.price.processor.throttler;
+
+import java.util.Arrays;
+
+/**
+ * Limits the delivery rate of every pair of a subscriber by the minimum interval between deliveries
+ * A pair which has not been delivered within the interval goes to the throttling strategy right away,
+ * so rarely changing pairs are not delayed.
+ * A pair which ticks again within the interval is held and coalesced till the interval is over,
+ * then the latest rate is released to the throttling strategy by the shared <c>TimerWheel</c>
+ * Is called under the lock of the queue
+ */
+final class CoalescingWindow {
+
+    private static final int INITIAL_PAIRS_CAPACITY = 64;
+    private static final long NEVER = 0;
+
+    private final long minIntervalNanos;
+    private final TimerWheel timerWheel;
+    private Runnable releaseTask;
+
+    private long[] deliveredNanos = new long[INITIAL_PAIRS_CAPACITY];
+    private boolean[] held = new boolean[INITIAL_PAIRS_CAPACITY];
+    private double[] heldRates = new double[INITIAL_PAIRS_CAPACITY];
+    private long[] heldTicks = new long[INITIAL_PAIRS_CAPACITY];
+    private int heldCount;
+
+    // The deliveries within the interval in order of time, a pair is there at most once
+    private int[] deliveryPairs = new int[INITIAL_PAIRS_CAPACITY];
+    private long[] deliveryNanos = new long[INITIAL_PAIRS_CAPACITY];
+    private int deliveriesHead;
+    private int deliveriesCount;
+
+    private boolean armed;
+    private long armedDeadlineNanos;
+
+    /**
+     * @param minIntervalNanos the minimum interval between deliveries of a pair
+     * @param timerWheel the timer to release held pairs
+     */
+    public CoalescingWindow(long minIntervalNanos, TimerWheel timerWheel) {
+        this.minIntervalNanos = minIntervalNanos;
+        this.timerWheel = timerWheel;
+    }
+
+    /**
+     * @param releaseTask the task to run by timer to release the held pairs, see <c>release</c>
+     */
+    public void setReleaseTask(Runnable releaseTask) {
+        this.releaseTask = releaseTask;
+    }
+
+    /**
+     * Holds the price if its pair has been delivered within the interval
+     * @param pairId the identifier of currency pair
+     * @param rate the rate
+     * @param ticksCount the number of ticks the rate conflates
+     * @return True if the price is held otherwise False and the price is to be pushed to strategy
+     */
+    public boolean hold(int pairId, double rate, long ticksCount) {
+        if (pairId >= deliveredNanos.length) {
+            grow(pairId);
+        }
+
+        long lastDeliveredNanos = deliveredNanos[pairId];
+
+        if (lastDeliveredNanos == NEVER) {
+            return false;
+        }
+
+        if (held[pairId]) {
+            heldRates[pairId] = rate;
+            heldTicks[pairId] += ticksCount;
+            return true;
+        }
+
+        long deadlineNanos = lastDeliveredNanos + minIntervalNanos;
+
+        if (System.nanoTime() - deadlineNanos >= 0) {
+            return false;
+        }
+
+        held[pairId] = true;
+        heldRates[pairId] = rate;
+        heldTicks[pairId] = ticksCount;
+        heldCount++;
+        arm(deadlineNanos);
+
+        return true;
+    }
+
+    /**
+     * Records the delivery of pair, it is not delivered again within the interval
+     * @param pairId the identifier of currency pair
+     * @param nowNanos the time given by <c>System.nanoTime()</c>
+     * @param strategy the strategy to release the held pairs to
+     */
+    public void onDelivered(int pairId, long nowNanos, ThrottlingStrategy strategy) {
+        release(nowNanos, strategy);
+
+        if (pairId >= deliveredNanos.length) {
+            grow(pairId);
+        }
+
+        long deliveredAtNanos = nowNanos != NEVER ? nowNanos : 1;
+        deliveredNanos[pairId] = deliveredAtNanos;
+        addDelivery(pairId, deliveredAtNanos);
+    }
+
+    /**
+     * Releases the pairs which interval is over to the strategy
+     * @param nowNanos the time given by <c>System.nanoTime()</c>
+     * @param strategy the strategy to release the held pairs to
+     * @return True if a pair is released
+     */
+    public boolean release(long nowNanos, ThrottlingStrategy strategy) {
+        boolean released = false;
+
+        while (deliveriesCount > 0) {
+            int pairId = deliveryPairs[deliveriesHead];
+            long deliveredAtNanos = deliveryNanos[deliveriesHead];
+
+            if (nowNanos - (deliveredAtNanos + minIntervalNanos) < 0) {
+                break;
+            }
+
+            deliveriesHead = (deliveriesHead + 1) & (deliveryPairs.length - 1);
+            deliveriesCount--;
+
+            if (deliveredNanos[pairId] != deliveredAtNanos) {
+                continue;
+            }
+
+            deliveredNanos[pairId] = NEVER;
+
+            if (held[pairId]) {
+                held[pairId] = false;
+                heldCount--;
+                strategy.pushItem(pairId, heldRates[pairId], heldTicks[pairId]);
+                released = true;
+            }
+        }
+
+        if (armed && nowNanos - armedDeadlineNanos >= 0) {
+            armed = false;
+        }
+
+        if (heldCount > 0) {
+            arm(getEarliestHeldDeadline());
+        }
+
+        return released;
+    }
+
+    private long getEarliestHeldDeadline() {
+        for (int i = 0; i < deliveriesCount; i++) {
+            int index = (deliveriesHead + i) & (deliveryPairs.length - 1);
+            int pairId = deliveryPairs[index];
+
+            if (held[pairId] && deliveredNanos[pairId] == deliveryNanos[index]) {
+                return deliveryNanos[index] + minIntervalNanos;
+            }
+        }
+
+        throw new IllegalStateException("The held pair is not found in deliveries");
+    }
+
+    private void arm(long deadlineNanos) {
+        if (armed && deadlineNanos - armedDeadlineNanos >= 0) {
+            return;
+        }
+
+        armed = true;
+        armedDeadlineNanos = deadlineNanos;
+        timerWheel.schedule(deadlineNanos, releaseTask);
+    }
+
+    private void addDelivery(int pairId, long deliveredAtNanos) {
+        if (deliveriesCount == deliveryPairs.length) {
+            int capacity = deliveryPairs.length * 2;
+            var grownPairs = new int[capacity];
+            var grownNanos = new long[capacity];
+
+            for (int i = 0; i < deliveriesCount; i++) {
+                int index = (deliveriesHead + i) & (deliveryPairs.length - 1);
+                grownPairs[i] = deliveryPairs[index];
+                grownNanos[i] = deliveryNanos[index];
+            }
+
+            deliveryPairs = grownPairs;
+            deliveryNanos = grownNanos;
+            deliveriesHead = 0;
+        }
+
+        int index = (deliveriesHead + deliveriesCount) & (deliveryPairs.length - 1);
+        deliveryPairs[index] = pairId;
+        deliveryNanos[index] = deliveredAtNanos;
+        deliveriesCount++;
+    }
+
+    private void grow(int pairId) {
+        int capacity = Math.max(pairId + 1, deliveredNanos.length * 2);
+        deliveredNanos = Arrays.copyOf(deliveredNanos, capacity);
+        held = Arrays.copyOf(held, capacity);
+        heldRates = Arrays.copyOf(heldRates, capacity);
+        heldTicks = Arrays.copyOf(heldTicks, capacity);
+    }
+}
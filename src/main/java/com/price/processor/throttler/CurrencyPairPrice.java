@@ -1,16 +1,30 @@
 package com.price.processor.throttler;
 
+import java.util.Objects;
+
 /**
  * Implements an immutable item to interchange between producer and consumer
+ * The age of delivered price is the information about the delivery, it is not a part of the value
  */
-final class CurrencyPairPrice {
+public final class CurrencyPairPrice {
 
     private final String ccyPair;
     private final double rate;
+    private final long ageNanos;
 
     public CurrencyPairPrice(String ccyPair, double rate) {
+        this(ccyPair, rate, 0);
+    }
+
+    /**
+     * @param ccyPair the currency pair
+     * @param rate the rate
+     * @param ageNanos the time passed since the tick of price came to the throttler till it is delivered
+     */
+    public CurrencyPairPrice(String ccyPair, double rate, long ageNanos) {
         this.ccyPair = ccyPair;
         this.rate = rate;
+        this.ageNanos = ageNanos;
     }
 
     public String getCcyPair() {
@@ -20,6 +34,28 @@ final class CurrencyPairPrice {
         return rate;
     }
 
+    /**
+     * The age is taken from the latest tick of pair, see <c>PairTickClock</c>
+     * @return the time passed since the tick of price came to the throttler till it is delivered
+     * or 0 if the ticks are not stamped
+     */
+    public long getAgeNanos() {
+        return ageNanos;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        var that = (CurrencyPairPrice) o;
+        return Double.compare(that.rate, rate) == 0 && ccyPair.equals(that.ccyPair);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(ccyPair, rate);
+    }
+
     @Override
     public String toString() {
         return String.format("Pair price {ccyPair %s rate= %f}", ccyPair, rate);
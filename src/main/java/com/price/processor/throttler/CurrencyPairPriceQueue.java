@@ -1,56 +1,399 @@
 package com.price.processor.throttler;
 
-import java.util.*;
-import java.util.concurrent.LinkedBlockingQueue;
+import java.util.Arrays;
 
 /**
  * Class implements a pipe between producer and consumer
- * If consumer is slower than producer it reduces a price pairs to deliver the only last value per price pair
+ * The queue is conflating: every offered price overwrites the slot of its price pair in place,
+ * so memory is bounded by the number of distinct price pairs rather than by the ticks rate
+ * and the time consumer is busy
+ * The queue counts the received ticks and the delivered prices per pair under its lock
+ * The optional <c>CoalescingWindow</c> limits the delivery rate of every pair
+ * The polled price carries its age given by <c>PairTickClock</c>, the price older than the staleness budget
+ * is skipped by the poll, so it never reaches the subscriber
+ * The number of pending prices is published to the volatile counter after every change of the strategy,
+ * so the drain checks whether there is a price to deliver without taking the lock contended by producers
+ * and the poll of the empty queue returns at once
  */
-final class CurrencyPairPriceQueue {
+final class CurrencyPairPriceQueue implements PriceSink {
 
-    private final LinkedBlockingQueue<CurrencyPairPrice> pubSubQueue = new LinkedBlockingQueue<>();
+    private static final int INITIAL_PAIRS_CAPACITY = 64;
+
+    private final Object lock = new Object();
+    private final MutableCurrencyPairPrice batchItem = new MutableCurrencyPairPrice();
     private final ThrottlingStrategy throttlingStrategy;
+    private final CurrencyPairRegistry pairRegistry;
+    private final CoalescingWindow coalescingWindow;
+    private final PairTickClock tickClock;
+    private final long maxPriceAgeNanos;
 
+    private long[] receivedTicks = new long[INITIAL_PAIRS_CAPACITY];
+    private long[] deliveredPrices = new long[INITIAL_PAIRS_CAPACITY];
+    private long[] seededVersions;
+    private long receivedTicksTotal;
+    private long deliveredPricesTotal;
+    private long skippedPricesTotal;
+    private volatile int pendingCount;
 
     public CurrencyPairPriceQueue(ThrottlingStrategy throttlingStrategy) {
+        this(throttlingStrategy, new CurrencyPairRegistry());
+    }
+
+    public CurrencyPairPriceQueue(ThrottlingStrategy throttlingStrategy, CurrencyPairRegistry pairRegistry) {
+        this(throttlingStrategy, pairRegistry, null);
+    }
+
+    /**
+     * @param throttlingStrategy the strategy to choose the next price to deliver
+     * @param pairRegistry the registry to resolve currency pairs
+     * @param coalescingWindow the window to limit the delivery rate of pairs or null if the rate is not limited
+     */
+    public CurrencyPairPriceQueue(ThrottlingStrategy throttlingStrategy, CurrencyPairRegistry pairRegistry,
+                                  CoalescingWindow coalescingWindow) {
+        this(throttlingStrategy, pairRegistry, coalescingWindow, null, 0);
+    }
+
+    /**
+     * @param throttlingStrategy the strategy to choose the next price to deliver
+     * @param pairRegistry the registry to resolve currency pairs
+     * @param coalescingWindow the window to limit the delivery rate of pairs or null if the rate is not limited
+     * @param tickClock the clock of the latest ticks of pairs to age the prices or null if the prices are not aged
+     * @param maxPriceAgeNanos the maximum age of polled price, 0 does not limit the age
+     */
+    public CurrencyPairPriceQueue(ThrottlingStrategy throttlingStrategy, CurrencyPairRegistry pairRegistry,
+                                  CoalescingWindow coalescingWindow, PairTickClock tickClock, long maxPriceAgeNanos) {
         this.throttlingStrategy = throttlingStrategy;
+        this.pairRegistry = pairRegistry;
+        this.coalescingWindow = coalescingWindow;
+        this.tickClock = tickClock;
+        this.maxPriceAgeNanos = maxPriceAgeNanos;
+    }
+
+
+    /**
+     * Implements non blocking write operation without allocation.
+     * The price replaces the not yet delivered price of the same pair
+     * @param pairId the identifier of currency pair
+     * @param rate the rate
+     */
+    public void offer(int pairId, double rate) {
+        synchronized (lock) {
+            push(pairId, rate);
+        }
+    }
+
+    /**
+     * Implements non blocking write operation of the price which conflates several ticks
+     * @param pairId the identifier of currency pair
+     * @param rate the latest rate
+     * @param ticksCount the number of ticks the rate conflates
+     */
+    @Override
+    public void offer(int pairId, double rate, long ticksCount) {
+        synchronized (lock) {
+            if (coalescingWindow == null || !coalescingWindow.hold(pairId, rate, ticksCount)) {
+                throttlingStrategy.pushItem(pairId, rate, ticksCount);
+                publishPendingCount();
+            }
+
+            countReceived(pairId, ticksCount);
+        }
+    }
+
+    /**
+     * Implements non blocking write of the tick stamped with the version of pair in the latest prices.
+     * The tick is skipped if the queue is seeded with the same or the later version of the pair
+     * @param pairId the identifier of currency pair
+     * @param rate the rate
+     * @param version the version of pair given by <c>ShardedPriceBoard.publish</c>
+     */
+    public void offerVersion(int pairId, double rate, long version) {
+        synchronized (lock) {
+            if (seededVersions == null || pairId >= seededVersions.length || version > seededVersions[pairId]) {
+                push(pairId, rate);
+            }
+        }
+    }
+
+    /**
+     * Seeds the queue with the latest price of every pair, the later ticks of pairs are offered by <c>offerVersion</c>
+     * Is called once the queue is reachable by producers, so a tick published while seeding is either seeded or offered
+     * The shard is read under the lock <c>ShardedPriceBoard.publish</c> writes it under,
+     * so the rate seeded is the one of the version seeded and the tick of the next version is not seeded twice
+     * @param latestPrices the board of the latest prices
+     */
+    public void seed(ShardedPriceBoard latestPrices) {
+        synchronized (lock) {
+            for (var board : latestPrices.getShards()) {
+                synchronized (board) {
+                    seed(board);
+                }
+            }
+        }
     }
 
+    private void seed(LatestPriceBoard board) {
+        int slotsCapacity = board.getSlotsCapacity();
+
+        for (int slot = 0; slot < slotsCapacity; slot++) {
+            long version = board.getVersion(slot);
+            int pairId = board.getPairId(slot);
+
+            // the pair offered already gets the later ticks by offers too
+            if (version > 0 && (pairId >= receivedTicks.length || receivedTicks[pairId] == 0)) {
+                seedVersion(pairId, version);
+                push(pairId, board.getRate(slot));
+            }
+        }
+    }
 
     /**
-     * Implements non blocking write operation
+     * Implements non blocking write operation without allocation.
+     * The price replaces the not yet delivered price of the same pair
+     * @param ccyPair the currency pair
+     * @param rate the rate
+     */
+    public void offer(String ccyPair, double rate) {
+        offer(pairRegistry.getPairId(ccyPair), rate);
+    }
+
+    /**
+     * Implements non blocking write operation.
+     * The price replaces the not yet delivered price of the same pair
      * @param pairPrice pair of currency
      * @return True if inserted successfully
      */
     public boolean offer(CurrencyPairPrice pairPrice) {
-        return pubSubQueue.offer(pairPrice);
+        offer(pairPrice.getCcyPair(), pairPrice.getRate());
+
+        return true;
+    }
+
+    /**
+     * Implements non blocking read without allocation.
+     * The stale prices are skipped
+     * @param target the <c>MutableCurrencyPairPrice</c> to fill with the price from producer
+     * @return True if the target is filled or False if there is nothing to deliver
+     */
+    public boolean poll(MutableCurrencyPairPrice target) {
+        if (pendingCount == 0) {
+            return false;
+        }
+
+        synchronized (lock) {
+            long nowNanos = tickClock != null || coalescingWindow != null ? System.nanoTime() : 0;
+            long ageNanos;
+
+            do {
+                if (!throttlingStrategy.popItem(target)) {
+                    pendingCount = 0;
+                    return false;
+                }
+
+                ageNanos = getAgeNanos(target.getPairId(), nowNanos);
+            } while (skipIfStale(ageNanos));
+
+            target.setAgeNanos(ageNanos);
+            countDelivered(target.getPairId());
+
+            if (coalescingWindow != null) {
+                coalescingWindow.onDelivered(target.getPairId(), nowNanos, throttlingStrategy);
+            }
+
+            publishPendingCount();
+        }
+
+        target.setCcyPair(pairRegistry.getCcyPair(target.getPairId()));
+
+        return true;
+    }
+
+    /**
+     * Implements non blocking read of all the prices pending at once, the stale prices are skipped
+     * @param batch the <c>PriceBatch</c> to fill, it is cleared before
+     * @return True if the batch is filled or False if there is nothing to deliver
+     */
+    public boolean poll(PriceBatch batch) {
+        batch.clear();
+
+        if (pendingCount == 0) {
+            return false;
+        }
+
+        synchronized (lock) {
+            long nowNanos = tickClock != null || coalescingWindow != null ? System.nanoTime() : 0;
+
+            while (throttlingStrategy.popItem(batchItem)) {
+                long ageNanos = getAgeNanos(batchItem.getPairId(), nowNanos);
+
+                if (skipIfStale(ageNanos)) {
+                    continue;
+                }
+
+                batch.add(batchItem.getPairId(), batchItem.getRate());
+                batch.setAgeNanos(batch.size() - 1, ageNanos);
+                countDelivered(batchItem.getPairId());
+
+                if (coalescingWindow != null) {
+                    coalescingWindow.onDelivered(batchItem.getPairId(), nowNanos, throttlingStrategy);
+                }
+            }
+
+            publishPendingCount();
+        }
+
+        for (int i = 0; i < batch.size(); i++) {
+            batch.setCcyPair(i, pairRegistry.getCcyPair(batch.getPairId(i)));
+        }
+
+        return !batch.isEmpty();
     }
 
     /**
      * Implements non blocking read.
-     * @return <c>CurrencyPairPrice</c> from producer
-     * @throws InterruptedException the Interrupted exception
+     * @return <c>CurrencyPairPrice</c> from producer or null if there is nothing to deliver
+     */
+    public CurrencyPairPrice poll() {
+        var target = new MutableCurrencyPairPrice();
+
+        return poll(target) ? target.toCurrencyPairPrice() : null;
+    }
+
+    /**
+     * Releases the held prices which delivery interval is over to the strategy
+     * @return True if a price is released
      */
-    public CurrencyPairPrice poll() throws InterruptedException {
-        LinkedList<CurrencyPairPrice> pairPriceBatch = new LinkedList<>();
+    public boolean releaseHeld() {
+        if (coalescingWindow == null) {
+            return false;
+        }
+
+        synchronized (lock) {
+            boolean isReleased = coalescingWindow.release(System.nanoTime(), throttlingStrategy);
+            publishPendingCount();
 
-        CurrencyPairPrice fetchedItem;
+            return isReleased;
+        }
+    }
 
-        fetchedItem = pubSubQueue.poll();
-        pubSubQueue.size()
+    /**
+     * Whether there is a price to deliver, reads the counter without the lock
+     * @return True if there is nothing to deliver otherwise False
+     */
+    public boolean isEmpty() {
+        return pendingCount == 0;
+    }
 
-        if (fetchedItem != null) {
-            throttlingStrategy.pushItem(fetchedItem);
-            pubSubQueue.drainTo(pairPriceBatch);
+    /**
+     * The number of prices waiting for delivery, it is bounded by the number of pairs
+     * @return the number of prices
+     */
+    public int size() {
+        return pendingCount;
+    }
 
-            for (var item : pairPriceBatch) {
-                throttlingStrategy.pushItem(item);
+    /**
+     * @return the number of ticks offered to the queue
+     */
+    public long getReceivedTicks() {
+        synchronized (lock) {
+            return receivedTicksTotal;
+        }
+    }
+
+    /**
+     * @return the number of prices polled from the queue
+     */
+    public long getDeliveredPrices() {
+        synchronized (lock) {
+            return deliveredPricesTotal;
+        }
+    }
+
+    /**
+     * @return the number of prices skipped by the poll as they are older than the staleness budget
+     */
+    public long getSkippedPrices() {
+        synchronized (lock) {
+            return skippedPricesTotal;
+        }
+    }
+
+    /**
+     * Adds the counters of every pair to the given ones indexed by pair identifier
+     * @param pairsReceivedTicks the numbers of ticks offered per pair
+     * @param pairsDeliveredPrices the numbers of prices polled per pair
+     */
+    public void addPairCounters(long[] pairsReceivedTicks, long[] pairsDeliveredPrices) {
+        synchronized (lock) {
+            int length = Math.min(receivedTicks.length, pairsReceivedTicks.length);
+
+            for (int i = 0; i < length; i++) {
+                pairsReceivedTicks[i] += receivedTicks[i];
+                pairsDeliveredPrices[i] += deliveredPrices[i];
             }
         }
+    }
+
+    private void countReceived(int pairId, long ticksCount) {
+        if (pairId >= receivedTicks.length) {
+            int capacity = Math.max(pairId + 1, receivedTicks.length * 2);
+            receivedTicks = Arrays.copyOf(receivedTicks, capacity);
+            deliveredPrices = Arrays.copyOf(deliveredPrices, capacity);
+        }
+
+        receivedTicks[pairId] += ticksCount;
+        receivedTicksTotal += ticksCount;
+    }
+
+    private void push(int pairId, double rate) {
+        if (coalescingWindow == null || !coalescingWindow.hold(pairId, rate, 1)) {
+            throttlingStrategy.pushItem(pairId, rate);
+            publishPendingCount();
+        }
 
-        fetchedItem = throttlingStrategy.popItem();
+        countReceived(pairId, 1);
+    }
+
+    private void seedVersion(int pairId, long version) {
+        if (seededVersions == null) {
+            seededVersions = new long[Math.max(INITIAL_PAIRS_CAPACITY, pairId + 1)];
+        } else if (pairId >= seededVersions.length) {
+            seededVersions = Arrays.copyOf(seededVersions, Math.max(pairId + 1, seededVersions.length * 2));
+        }
+
+        seededVersions[pairId] = version;
+    }
+
+    /**
+     * Is called under the lock after the strategy is changed, the conflated tick does not change the count,
+     * so the volatile write is skipped
+     */
+    private void publishPendingCount() {
+        int size = throttlingStrategy.size();
+
+        if (size != pendingCount) {
+            pendingCount = size;
+        }
+    }
+
+    private long getAgeNanos(int pairId, long nowNanos) {
+        return tickClock != null
+                ? tickClock.getAgeNanos(pairId, nowNanos)
+                : 0;
+    }
+
+    private boolean skipIfStale(long ageNanos) {
+        if (maxPriceAgeNanos == 0 || ageNanos <= maxPriceAgeNanos) {
+            return false;
+        }
+
+        skippedPricesTotal++;
+        return true;
+    }
 
-        return fetchedItem;
+    private void countDelivered(int pairId) {
+        deliveredPrices[pairId]++;
+        deliveredPricesTotal++;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,69 @@
+package com.price.processor.throttler;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Maps currency pairs to the dense integer identifiers
+ * A currency pair is registered once when it is seen the first time, so the per pair state
+ * can be kept in flat arrays indexed by the pair identifier
+ * Might be shared by several throttlers
+ */
+public final class CurrencyPairRegistry {
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final ConcurrentHashMap<String, Integer> pairIds = new ConcurrentHashMap<>();
+    private volatile String[] ccyPairs = new String[INITIAL_CAPACITY];
+    private volatile int size;
+
+    /**
+     * Gets the identifier of currency pair, registers the pair if it is not registered yet
+     * @param ccyPair the currency pair
+     * @return the identifier of currency pair
+     */
+    public int getPairId(String ccyPair) {
+        var pairId = pairIds.get(ccyPair);
+
+        return pairId != null
+                ? pairId
+                : register(ccyPair);
+    }
+
+    /**
+     * Gets the currency pair by identifier
+     * @param pairId the identifier of currency pair
+     * @return the currency pair
+     */
+    public String getCcyPair(int pairId) {
+        return ccyPairs[pairId];
+    }
+
+    /**
+     * The number of registered currency pairs, the identifiers are in [0; size)
+     * @return the number of currency pairs
+     */
+    public int size() {
+        return size;
+    }
+
+    private synchronized int register(String ccyPair) {
+        var pairId = pairIds.get(ccyPair);
+
+        if (pairId != null) {
+            return pairId;
+        }
+
+        int newPairId = size;
+
+        if (newPairId == ccyPairs.length) {
+            ccyPairs = Arrays.copyOf(ccyPairs, newPairId * 2);
+        }
+
+        ccyPairs[newPairId] = ccyPair;
+        size = newPairId + 1;
+        pairIds.put(ccyPair, newPairId);
+
+        return newPairId;
+    }
+}
@@ -1,140 +1,286 @@
 package com.price.processor.throttler;
 
-import java.util.HashMap;
+import java.util.Arrays;
 
 /**
  * Implements the throttling strategy based on ranking of pair price.
  * Provides the equal chance to deliver pair prices regardless of their income frequency
  * The rank is defined as a Rank = DeliveredCount/IncomeCount
  * Rank is value defined on [0; 1].
- * Pair price with minimal rank is a the next to be returned
+ * Pair price with minimal rank is a the next to be returned, on equal ranks the rarer pair goes first
  * As pair price is returned, rank is recalculated to provide the equal chance to deliver
+ * The counts decay exponentially with the half-life given in ticks pushed to the strategy,
+ * so the rank follows the current tick rates of pairs rather than the whole session.
+ * The decay is forward: every tick weighs more than the previous one and all the counts are rescaled
+ * once the weight grows large, the ratios and the order of counts are not changed by the decay,
+ * so the ranks of queued pairs stay valid and the cost of push and pop does not depend on the uptime
+ * Pair prices waiting for delivery are kept in the indexed min heap by rank,
+ * so push and pop cost O(log n) and isEmpty costs O(1) regardless of the number of pairs
+ * The statistics are kept in primitive arrays indexed by pair identifier, there is no object per pair.
+ * The heap keeps the rank and the income of every queued pair next to its identifier,
+ * so the sifting compares the adjacent heap slots and does not jump to the statistics of pairs
  */
-final class DeliveryFreqRankThrottling implements ThrottlingStrategy {
-
-    private final HashMap<String, PriceStatistics> reducedPairPrices = new HashMap<>();
+public final class DeliveryFreqRankThrottling implements ThrottlingStrategy {
+
+    public static final long DEFAULT_HALF_LIFE_TICKS = 1L << 20;
+
+    private static final int INITIAL_HEAP_CAPACITY = 16;
+    private static final int INITIAL_PAIRS_CAPACITY = 64;
+    private static final int NOT_QUEUED = -1;
+    private static final double MAX_TICK_WEIGHT = 0x1p64;
+
+    private final long halfLifeTicks;
+    private final double tickWeightGrowth;
+
+    private double[] rates = new double[INITIAL_PAIRS_CAPACITY];
+    private double[] deliveredTotals = new double[INITIAL_PAIRS_CAPACITY];
+    private double[] incomeTotals = new double[INITIAL_PAIRS_CAPACITY];
+    private int[] heapIndexes = growHeapIndexes(new int[0], INITIAL_PAIRS_CAPACITY);
+    private int[] heap = new int[INITIAL_HEAP_CAPACITY];
+    private double[] heapRanks = new double[INITIAL_HEAP_CAPACITY];
+    private double[] heapIncomes = new double[INITIAL_HEAP_CAPACITY];
+    private int heapSize;
+    private double tickWeight = 1;
+
+    public DeliveryFreqRankThrottling() {
+        this(DEFAULT_HALF_LIFE_TICKS);
+    }
 
-    private static class PriceStatistics implements Comparable<PriceStatistics>{
+    /**
+     * @param halfLifeTicks the number of ticks pushed to the strategy to halve the weight of the earlier ticks
+     */
+    public DeliveryFreqRankThrottling(long halfLifeTicks) {
+        if (halfLifeTicks <= 0) {
+            throw new IllegalArgumentException("The half-life must be positive but is " + halfLifeTicks);
+        }
 
-        private CurrencyPairPrice pairPrice;
-        private Long deliveredTotal;
-        private Long incomeTotal;
+        this.halfLifeTicks = halfLifeTicks;
+        tickWeightGrowth = Math.pow(2, 1d / halfLifeTicks);
+    }
 
-        public PriceStatistics(CurrencyPairPrice pairPrice) {
-            deliveredTotal = 0L;
-            incomeTotal = 0L;
-            this.pairPrice = pairPrice;
+    /**
+     * Restores the tick rates of pairs, i.e. recorded by the previous session, as if the pairs have been delivered,
+     * so the rarer pairs go first from the start instead of being ranked by the first ticks only.
+     * The rates are scaled to the total weight of ticks the half-life keeps, so they decay as the ticks come
+     * @param pairsTickRates the decayed numbers of ticks indexed by pair identifier
+     */
+    public void restoreTickRates(double[] pairsTickRates) {
+        double totalTicks = 0;
+
+        for (double tickRate : pairsTickRates) {
+            totalTicks += tickRate;
         }
 
-        public CurrencyPairPrice getPairPrice() {
-            return pairPrice;
+        if (totalTicks == 0) {
+            return;
         }
 
-        public void setPairPrice(CurrencyPairPrice pairPrice) {
-            this.pairPrice = pairPrice;
-        }
+        double scale = tickWeight * halfLifeTicks / Math.log(2) / totalTicks;
 
-        public float getDeliveredTotal() {
-            return deliveredTotal;
+        if (pairsTickRates.length > rates.length) {
+            growPairs(pairsTickRates.length - 1);
         }
 
-        public void setDeliveredTotal(Long deliveredTotal) {
-            this.deliveredTotal = deliveredTotal;
+        for (int pairId = 0; pairId < pairsTickRates.length; pairId++) {
+            if (pairsTickRates[pairId] > 0 && heapIndexes[pairId] == NOT_QUEUED) {
+                incomeTotals[pairId] += pairsTickRates[pairId] * scale;
+                deliveredTotals[pairId] = incomeTotals[pairId];
+            }
         }
+    }
 
-        public Long getIncomeTotal() {
-            return incomeTotal;
-        }
+    @Override
+    public void pushItem(int pairId, double rate) {
+        pushItem(pairId, rate, 1);
+    }
 
-        public void setIncomeTotal(Long incomeTotal) {
-            this.incomeTotal = incomeTotal;
-        }
+    @Override
+    public void pushItem(int pairId, double rate, long ticksCount) {
 
-        public Float getRank() {
-            return getIncomeTotal() != 0F
-                    ? getDeliveredTotal() / getIncomeTotal()
-                    : 0F;
+        if (pairId >= rates.length) {
+            growPairs(pairId);
         }
 
-        public boolean isHighestRank() {
-            return getRank() == 1F;
-        }
+        incomeTotals[pairId] += tickWeight * ticksCount;
+        rates[pairId] = rate;
+        advanceTickWeight(ticksCount);
+
+        int heapIndex = heapIndexes[pairId];
 
-        public void resetForHighestRank() {
-            deliveredTotal = incomeTotal;
+        if (heapIndex != NOT_QUEUED) {
+            heapRanks[heapIndex] = getRank(pairId);
+            heapIncomes[heapIndex] = incomeTotals[pairId];
+            siftUp(heapIndex);
+            siftDown(heapIndexes[pairId]);
+        } else if (deliveredTotals[pairId] != incomeTotals[pairId]) {
+            offerToHeap(pairId);
         }
+    }
 
-        @Override
-        public int compareTo(PriceStatistics o) {
-            return this.getRank().compareTo(o.getRank());
+    @Override
+    public boolean popItem(MutableCurrencyPairPrice target) {
+
+        if (heapSize == 0) {
+            return false;
         }
+
+        int pairId = pollFromHeap();
+        // the delivered pair gets the highest rank
+        deliveredTotals[pairId] = incomeTotals[pairId];
+        target.set(pairId, rates[pairId]);
+
+        return true;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return heapSize == 0;
     }
 
     @Override
-    public void pushItem(CurrencyPairPrice currencyPairPrice) {
+    public int size() {
+        return heapSize;
+    }
+
+    private double getRank(int pairId) {
+        double incomeTotal = incomeTotals[pairId];
+
+        return incomeTotal != 0
+                ? deliveredTotals[pairId] / incomeTotal
+                : 0;
+    }
+
+    private int compare(double rank, double incomeTotal, int otherIndex) {
+        int ret = Double.compare(rank, heapRanks[otherIndex]);
+
+        return ret != 0
+                ? ret
+                : Double.compare(incomeTotal, heapIncomes[otherIndex]);
+    }
 
-        var statistics = reducedPairPrices.get(currencyPairPrice.getCcyPair());
+    private void advanceTickWeight(long ticksCount) {
+        double growth = ticksCount == 1
+                ? tickWeightGrowth
+                : Math.pow(tickWeightGrowth, ticksCount);
 
-        if (statistics == null) {
-            statistics = new PriceStatistics(currencyPairPrice);
-            statistics.setIncomeTotal(1L);
-            reducedPairPrices.put(currencyPairPrice.getCcyPair(), statistics);
-        } else {
-            statistics.setIncomeTotal(statistics.getIncomeTotal() + 1);
-            statistics.setPairPrice(currencyPairPrice);
+        if (tickWeight * growth > MAX_TICK_WEIGHT) {
+            rescale(1 / tickWeight);
+            growth = Math.min(growth, MAX_TICK_WEIGHT);
         }
+
+        tickWeight *= growth;
     }
 
-    @Override
-    public CurrencyPairPrice popItem() {
+    /**
+     * Scales all the counts down to keep them finite, the ranks and the order of pairs are not changed
+     * @param factor the factor to multiply the counts
+     */
+    private void rescale(double factor) {
+        for (int i = 0; i < incomeTotals.length; i++) {
+            incomeTotals[i] *= factor;
+            deliveredTotals[i] *= factor;
+        }
+
+        for (int i = 0; i < heapSize; i++) {
+            heapIncomes[i] *= factor;
+        }
+
+        tickWeight *= factor;
+    }
 
-        var minRankPrice = findPriceWithMinRank();
+    private void growPairs(int pairId) {
+        int capacity = Math.max(pairId + 1, rates.length * 2);
 
-        if (minRankPrice != null) {
-            var minStat = reducedPairPrices.get(minRankPrice.getCcyPair());
+        rates = Arrays.copyOf(rates, capacity);
+        deliveredTotals = Arrays.copyOf(deliveredTotals, capacity);
+        incomeTotals = Arrays.copyOf(incomeTotals, capacity);
+        heapIndexes = growHeapIndexes(heapIndexes, capacity);
+    }
 
-            if (minStat.isHighestRank())
-                minRankPrice = null;
-            else
-                minStat.resetForHighestRank();
+    private static int[] growHeapIndexes(int[] heapIndexes, int capacity) {
+        var grown = Arrays.copyOf(heapIndexes, capacity);
+        Arrays.fill(grown, heapIndexes.length, capacity, NOT_QUEUED);
+
+        return grown;
+    }
+
+    private void offerToHeap(int pairId) {
+        if (heapSize == heap.length) {
+            heap = Arrays.copyOf(heap, heapSize * 2);
+            heapRanks = Arrays.copyOf(heapRanks, heapSize * 2);
+            heapIncomes = Arrays.copyOf(heapIncomes, heapSize * 2);
         }
 
-        return minRankPrice;
+        heapSize++;
+        siftUp(pairId, getRank(pairId), incomeTotals[pairId], heapSize - 1);
     }
 
-    @Override
-    public boolean isEmpty() {
+    private int pollFromHeap() {
+        int minPairId = heap[0];
+        heapSize--;
 
-        boolean ret = true;
-        PriceStatistics minStat = null ;
+        if (heapSize > 0) {
+            siftDown(heap[heapSize], heapRanks[heapSize], heapIncomes[heapSize], 0);
+        }
 
-        for (var currentStat : reducedPairPrices.values()) {
+        heapIndexes[minPairId] = NOT_QUEUED;
 
-            if (minStat == null || minStat.compareTo(currentStat) > 0) {
-                minStat = currentStat;
-            }
+        return minPairId;
+    }
+
+    private void siftUp(int index) {
+        siftUp(heap[index], heapRanks[index], heapIncomes[index], index);
+    }
+
+    private void siftDown(int index) {
+        siftDown(heap[index], heapRanks[index], heapIncomes[index], index);
+    }
+
+    private void siftUp(int pairId, double rank, double incomeTotal, int index) {
+        while (index > 0) {
+            int parentIndex = (index - 1) >>> 1;
 
-            if (!minStat.isHighestRank()) {
-                ret = false;
+            if (compare(rank, incomeTotal, parentIndex) >= 0) {
                 break;
             }
+
+            moveInHeap(parentIndex, index);
+            index = parentIndex;
         }
 
-        return ret;
+        setInHeap(pairId, rank, incomeTotal, index);
     }
 
-    private CurrencyPairPrice findPriceWithMinRank() {
-        CurrencyPairPrice minRankPrice = null;
-        PriceStatistics minStat = null ;
+    private void siftDown(int pairId, double rank, double incomeTotal, int index) {
+        int half = heapSize >>> 1;
 
-        for (var currentStat : reducedPairPrices.values()) {
+        while (index < half) {
+            int childIndex = 2 * index + 1;
+            int rightIndex = childIndex + 1;
 
-            if (minStat == null || minStat.compareTo(currentStat) > 0) {
-                minStat = currentStat;
-                minRankPrice = minStat.getPairPrice();
+            if (rightIndex < heapSize && compare(heapRanks[rightIndex], heapIncomes[rightIndex], childIndex) < 0) {
+                childIndex = rightIndex;
             }
+
+            if (compare(rank, incomeTotal, childIndex) <= 0) {
+                break;
+            }
+
+            moveInHeap(childIndex, index);
+            index = childIndex;
         }
 
-        return minRankPrice;
+        setInHeap(pairId, rank, incomeTotal, index);
+    }
+
+    private void moveInHeap(int fromIndex, int toIndex) {
+        setInHeap(heap[fromIndex], heapRanks[fromIndex], heapIncomes[fromIndex], toIndex);
+    }
+
+    private void setInHeap(int pairId, double rank, double incomeTotal, int index) {
+        heap[index] = pairId;
+        heapRanks[index] = rank;
+        heapIncomes[index] = incomeTotal;
+        heapIndexes[pairId] = index;
     }
 }
@@ -0,0 +1,17 @@
+package com.price.processor.throttler;
+
+/**
+ * Defines the threads the subscribers are served on
+ */
+public enum DeliveryMode {
+    /**
+     * Fast subscribers share the bounded pool of workers, slow ones are moved to their own platform threads
+     */
+    SHARED_WORKERS,
+
+    /**
+     * Each subscriber has its own virtual thread which parks while there is nothing to deliver.
+     * Suits thousands of blocking subscribers. Falls back to platform threads on JDK without virtual threads
+     */
+    VIRTUAL_THREAD_PER_SUBSCRIBER
+}
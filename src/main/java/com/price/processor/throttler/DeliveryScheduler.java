@@ -0,0 +1,31 @@
+package com.price.processor.throttler;
+
+/**
+ * Describes how the drain tasks of subscriptions are run
+ */
+interface DeliveryScheduler extends AutoCloseable {
+
+    /**
+     * Starts serving the subscription
+     * @param subscription the <c>Subscription</c> instance
+     */
+    void register(Subscription subscription);
+
+    /**
+     * Stops serving the subscription
+     * @param subscription the <c>Subscription</c> instance
+     */
+    void unregister(Subscription subscription);
+
+    /**
+     * Runs the drain of subscription which has been switched to SCHEDULED state
+     * @param subscription the <c>Subscription</c> to drain
+     */
+    void execute(Subscription subscription);
+
+    /**
+     * Stops serving all the subscriptions
+     */
+    @Override
+    void close();
+}
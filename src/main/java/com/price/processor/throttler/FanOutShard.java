@@ -0,0 +1,160 @@
+package com.price.processor.throttler;
+
+import com.price.processor.PriceProcessor;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Implements the shard of subscribers with its own fan-out thread
+ * The producer writes every price once to the board of each shard, the board is the ring of shard
+ * which conflates the prices to the latest per pair when the fan-out thread is lapped.
+ * The fan-out thread takes the prices from the board and offers them to the queues of subscribers of the shard,
+ * so the fan-out cost is split over the shards and a shard with many or misbehaving subscribers
+ * does not delay the others
+ * The subscriber joins the shard on the fan-out thread, so it is seeded with the latest prices fanned out so far
+ * and gets the later ones by the next pull without a gap or a duplicate
+ */
+final class FanOutShard implements PriceSink, AutoCloseable {
+
+    private static final long CLOSE_TIMEOUT_MILLIS = 1_000;
+
+    private final ShardedPriceBoard board;
+    private final boolean seedOnJoin;
+    private final PriceBoardCursor cursor;
+    private final SubscriptionArray subscriptions = new SubscriptionArray();
+    private final ConcurrentLinkedQueue<Subscription> joiningSubscriptions = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger subscriptionsCount = new AtomicInteger();
+    private final Thread thread;
+    private volatile boolean parked;
+    private volatile boolean closed;
+
+    /**
+     * @param shardIndex the index of shard to name its thread
+     * @param board the board the producer writes the prices of shard to
+     * @param seedOnJoin True to seed the joining subscriptions with the latest prices fanned out so far
+     */
+    public FanOutShard(int shardIndex, ShardedPriceBoard board, boolean seedOnJoin) {
+        this.board = board;
+        this.seedOnJoin = seedOnJoin;
+        cursor = new PriceBoardCursor(board);
+        thread = ThreadFactories.newDaemonThreadFactory("price-throttler-fan-out-" + shardIndex + "-").newThread(this::fanOutLoop);
+        thread.start();
+    }
+
+    /**
+     * Writes the price to the board of shard and wakes up the fan-out thread
+     * @param pairId the identifier of currency pair
+     * @param rate the rate
+     */
+    public void publish(int pairId, double rate) {
+        board.publish(pairId, rate);
+
+        if (parked) {
+            LockSupport.unpark(thread);
+        }
+    }
+
+    /**
+     * Adds the subscription to the shard, it joins on the fan-out thread
+     * @param subscription the <c>Subscription</c> instance
+     */
+    public void add(Subscription subscription) {
+        subscriptionsCount.incrementAndGet();
+        joiningSubscriptions.offer(subscription);
+        LockSupport.unpark(thread);
+    }
+
+    /**
+     * Removes the subscription of subscriber from the shard
+     * @param processor the subscriber
+     * @return True if the subscriber has been fanned out by the shard
+     */
+    public boolean remove(PriceProcessor processor) {
+        if (subscriptions.remove(processor) == null) {
+            return false;
+        }
+
+        subscriptionsCount.decrementAndGet();
+        return true;
+    }
+
+    /**
+     * @return the number of subscriptions of the shard
+     */
+    public int getSubscriptionsCount() {
+        return subscriptionsCount.get();
+    }
+
+    /**
+     * Is called by the fan-out thread for every price taken from the board
+     */
+    @Override
+    public void offer(int pairId, double rate, long ticksCount) {
+        for (var subscription : subscriptions.get()) {
+            subscription.offer(pairId, rate, ticksCount);
+        }
+    }
+
+    /**
+     * Stops the fan-out thread after the prices published so far are offered to the subscribers
+     */
+    @Override
+    public void close() {
+        closed = true;
+        LockSupport.unpark(thread);
+
+        try {
+            thread.join(CLOSE_TIMEOUT_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void fanOutLoop() {
+        while (true) {
+            joinSubscriptions();
+
+            if (cursor.hasPending()) {
+                cursor.pullInto(this);
+                continue;
+            }
+
+            if (closed) {
+                return;
+            }
+
+            parked = true;
+
+            if (!cursor.hasPending() && joiningSubscriptions.isEmpty() && !closed) {
+                LockSupport.park(this);
+            }
+
+            parked = false;
+        }
+    }
+
+    private void joinSubscriptions() {
+        Subscription subscription;
+
+        while ((subscription = joiningSubscriptions.poll()) != null) {
+            if (subscription.isCancelled()) {
+                subscriptionsCount.decrementAndGet();
+                continue;
+            }
+
+            subscriptions.add(subscription);
+
+            // the subscription might be removed concurrently before it has joined
+            if (subscription.isCancelled()) {
+                remove(subscription.getProcessor());
+                continue;
+            }
+
+            if (seedOnJoin) {
+                cursor.offerTaken(subscription::offer);
+            }
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package com.price.processor.throttler;
+
+import com.price.processor.PriceProcessor;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Implements the <c>Flow.Subscription</c> of the <c>Flow.Subscriber</c> of prices
+ * Is subscribed to the <c>PriceThrottler</c> as a subscriber whose drain delivers while there is the demand.
+ * While the demand is zero the prices are conflated by the queue of subscriber,
+ * so the backpressure never buffers more than the latest price per pair
+ * The completion or the error raised while the drain is in <c>onNext</c> is signalled by the drain after the call,
+ * so the signals to the subscriber never overlap and the subscriber gets one terminal signal at most
+ */
+final class FlowPriceSubscription implements PriceProcessor, Flow.Subscription {
+
+    private final static Logger logger = LogManager.getLogger(FlowPriceSubscription.class);
+
+    private static final int NOT_SIGNALLING = 0;
+    private static final int IN_NEXT = 1;
+    private static final int IN_NEXT_TERMINATION_PENDING = 2;
+    private static final int TERMINATED = 3;
+
+    private final Flow.Subscriber<? super CurrencyPairPrice> subscriber;
+    private final PriceThrottler throttler;
+    private final AtomicLong demand = new AtomicLong();
+    private final AtomicBoolean done = new AtomicBoolean();
+    private final AtomicInteger signalling = new AtomicInteger(NOT_SIGNALLING);
+
+    private volatile Runnable wakeUpTask;
+    private volatile Throwable pendingError;
+
+    /**
+     * @param subscriber the <c>Flow.Subscriber</c> instance
+     * @param throttler the <c>PriceThrottler</c> the subscription is subscribed to
+     */
+    public FlowPriceSubscription(Flow.Subscriber<? super CurrencyPairPrice> subscriber, PriceThrottler throttler) {
+        this.subscriber = subscriber;
+        this.throttler = throttler;
+    }
+
+    /**
+     * @param wakeUpTask the task to schedule the drain as the demand is signalled
+     */
+    void setWakeUpTask(Runnable wakeUpTask) {
+        this.wakeUpTask = wakeUpTask;
+    }
+
+    /**
+     * Whether the subscriber is ready to take the next price
+     * @return True if the demand is not zero
+     */
+    boolean hasDemand() {
+        return demand.get() > 0 && !done.get();
+    }
+
+    /**
+     * Whether the subscription is cancelled or terminated
+     * @return True if no more prices are delivered
+     */
+    boolean isDone() {
+        return done.get();
+    }
+
+    /**
+     * Adds to the demand, the demand of <c>Long.MAX_VALUE</c> is unbounded
+     * The demand which is not positive cancels the subscription with the error
+     * @param n the number of prices the subscriber is ready to take
+     */
+    @Override
+    public void request(long n) {
+        if (n <= 0) {
+            fail(new IllegalArgumentException("The demand must be positive, but " + n + " is requested"));
+            return;
+        }
+
+        long current;
+
+        do {
+            current = demand.get();
+        } while (current != Long.MAX_VALUE && !demand.compareAndSet(current, current + n < 0 ? Long.MAX_VALUE : current + n));
+
+        var task = wakeUpTask;
+
+        if (task != null) {
+            task.run();
+        }
+    }
+
+    @Override
+    public void cancel() {
+        if (done.compareAndSet(false, true)) {
+            throttler.unsubscribe(this);
+        }
+    }
+
+    /**
+     * Signals the completion as the throttler is closed, the price being taken by the subscriber is the last one
+     * If the drain is in <c>onNext</c> the completion is left to the drain
+     */
+    void complete() {
+        if (done.compareAndSet(false, true)) {
+            terminate();
+        }
+    }
+
+    /**
+     * Cancels the subscription and signals the error, if the drain is in <c>onNext</c> the error is left to the drain
+     * @param error the error to signal
+     */
+    private void fail(Throwable error) {
+        if (!done.compareAndSet(false, true)) {
+            return;
+        }
+
+        throttler.unsubscribe(this);
+        pendingError = error;
+        terminate();
+    }
+
+    private void terminate() {
+        while (true) {
+            int current = signalling.get();
+
+            if (current == NOT_SIGNALLING && signalling.compareAndSet(NOT_SIGNALLING, TERMINATED)) {
+                signalTermination();
+                return;
+            }
+
+            if (current == IN_NEXT && signalling.compareAndSet(IN_NEXT, IN_NEXT_TERMINATION_PENDING)) {
+                return;
+            }
+        }
+    }
+
+    private void signalTermination() {
+        var error = pendingError;
+
+        if (error != null) {
+            subscriber.onError(error);
+        } else {
+            subscriber.onComplete();
+        }
+    }
+
+    /**
+     * Is called by the drain only while there is the demand
+     */
+    @Override
+    public void onPrice(String ccyPair, double rate) {
+        onPrice(new CurrencyPairPrice(ccyPair, rate));
+    }
+
+    /**
+     * Is called by the drain only while there is the demand, the price carries its age
+     * @param price the <c>CurrencyPairPrice</c> instance
+     */
+    void onPrice(CurrencyPairPrice price) {
+        // the subscriber terminated concurrently gets nothing after the terminal signal
+        if (!signalling.compareAndSet(NOT_SIGNALLING, IN_NEXT)) {
+            return;
+        }
+
+        if (demand.get() != Long.MAX_VALUE) {
+            demand.decrementAndGet();
+        }
+
+        try {
+            subscriber.onNext(price);
+        } catch (RuntimeException e) {
+            logger.error(this + " has failed to take the price, the subscription is cancelled", e);
+            cancel();
+        } finally {
+            if (!signalling.compareAndSet(IN_NEXT, NOT_SIGNALLING)) {
+                signalling.set(TERMINATED);
+                signalTermination();
+            }
+        }
+    }
+
+    @Override
+    public void subscribe(PriceProcessor priceProcessor) {
+        //Left it empty on purpose
+    }
+
+    @Override
+    public void unsubscribe(PriceProcessor priceProcessor) {
+        //Left it empty on purpose
+    }
+
+    @Override
+    public String toString() {
+        return "Flow subscription of " + subscriber;
+    }
+}
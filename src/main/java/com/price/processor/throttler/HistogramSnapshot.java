@@ -0,0 +1,98 @@
+package com.price.processor.throttler;
+
+/**
+ * The immutable snapshot of durations histogram
+ * The values are reported as the upper bound of their bucket, i.e. with up to 12.5% overestimation
+ */
+public final class HistogramSnapshot {
+
+    private static final HistogramSnapshot EMPTY = new HistogramSnapshot(new long[0], new long[0]);
+
+    private final long[] counts;
+    private final long[] upperBounds;
+    private final long totalCount;
+
+    HistogramSnapshot(long[] counts, long[] upperBounds) {
+        this.counts = counts;
+        this.upperBounds = upperBounds;
+
+        long total = 0;
+
+        for (var count : counts) {
+            total += count;
+        }
+
+        this.totalCount = total;
+    }
+
+    static HistogramSnapshot empty() {
+        return EMPTY;
+    }
+
+    /**
+     * @return the number of recorded values
+     */
+    public long getTotalCount() {
+        return totalCount;
+    }
+
+    /**
+     * The value which the given percentage of recorded values does not exceed
+     * @param percentile the percentile in [0; 100]
+     * @return the value in nanoseconds or 0 if nothing is recorded
+     */
+    public long getValueAtPercentile(double percentile) {
+        if (totalCount == 0) {
+            return 0;
+        }
+
+        long rank = Math.max(1, (long) Math.ceil(Math.min(percentile, 100.0) / 100.0 * totalCount));
+        long seen = 0;
+
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+
+            if (seen >= rank) {
+                return upperBounds[i];
+            }
+        }
+
+        return getMaxValue();
+    }
+
+    /**
+     * @return the maximal recorded value in nanoseconds or 0 if nothing is recorded
+     */
+    public long getMaxValue() {
+        for (int i = counts.length - 1; i >= 0; i--) {
+            if (counts[i] != 0) {
+                return upperBounds[i];
+            }
+        }
+
+        return 0;
+    }
+
+    /**
+     * @return the mean of recorded values in nanoseconds or 0 if nothing is recorded
+     */
+    public double getMean() {
+        if (totalCount == 0) {
+            return 0;
+        }
+
+        double sum = 0;
+
+        for (int i = 0; i < counts.length; i++) {
+            sum += (double) counts[i] * upperBounds[i];
+        }
+
+        return sum / totalCount;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Histogram { count= %d, p50= %d, p99= %d, max= %d }",
+                totalCount, getValueAtPercentile(50), getValueAtPercentile(99), getMaxValue());
+    }
+}
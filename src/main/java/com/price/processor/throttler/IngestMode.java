@@ -0,0 +1,26 @@
+package com.price.processor.throttler;
+
+/**
+ * Defines how a price gets from producer to subscribers
+ */
+public enum IngestMode {
+    /**
+     * The producer offers every price to the queue of each subscriber
+     * Concurrent producers contend on the lock of every subscriber queue
+     */
+    QUEUE_PER_SUBSCRIBER,
+
+    /**
+     * The producer writes every price once to the shared latest price board,
+     * each subscriber takes the changed prices from the board with its own cursor
+     * Concurrent producers contend only on the board shard of their pair
+     */
+    SHARED_PRICE_BOARD,
+
+    /**
+     * The subscribers are split over the fan-out shards, each with its own thread.
+     * The producer writes every price once to the board of each shard
+     * and the fan-out thread of shard offers it to the queues of its subscribers
+     */
+    SHARDED_FAN_OUT
+}
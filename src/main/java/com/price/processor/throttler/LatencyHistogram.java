@@ -0,0 +1,71 @@
+package com.price.processor.throttler;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Implements the lock-free histogram of durations in nanoseconds
+ * Buckets are log-linear: every power of two range is split into 8 buckets,
+ * so the value is kept with 12.5% precision in fixed memory regardless of the number of recorded values
+ * Recording is safe from many threads and a snapshot is taken without stopping them
+ */
+final class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final int MAX_EXPONENT = 40;
+    private static final int BUCKETS_COUNT = (MAX_EXPONENT - SUB_BUCKET_BITS + 2) * SUB_BUCKET_COUNT;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS_COUNT);
+
+    /**
+     * Records the duration, the durations longer than 2^41 nanoseconds are counted as the longest one
+     * @param nanos the duration in nanoseconds
+     */
+    public void record(long nanos) {
+        counts.incrementAndGet(getBucketIndex(nanos));
+    }
+
+    /**
+     * Takes the snapshot of recorded values
+     * @return the <c>HistogramSnapshot</c> instance
+     */
+    public HistogramSnapshot snapshot() {
+        var snapshotCounts = new long[BUCKETS_COUNT];
+        var upperBounds = new long[BUCKETS_COUNT];
+
+        for (int i = 0; i < BUCKETS_COUNT; i++) {
+            snapshotCounts[i] = counts.get(i);
+            upperBounds[i] = getBucketUpperBound(i);
+        }
+
+        return new HistogramSnapshot(snapshotCounts, upperBounds);
+    }
+
+    static int getBucketIndex(long nanos) {
+        if (nanos < SUB_BUCKET_COUNT) {
+            return nanos < 0 ? 0 : (int) nanos;
+        }
+
+        int exponent = 63 - Long.numberOfLeadingZeros(nanos);
+
+        if (exponent > MAX_EXPONENT) {
+            return BUCKETS_COUNT - 1;
+        }
+
+        int subBucket = (int) (nanos >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKET_COUNT - 1);
+
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKET_COUNT + subBucket;
+    }
+
+    static long getBucketUpperBound(int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+
+        int exponent = index / SUB_BUCKET_COUNT + SUB_BUCKET_BITS - 1;
+        int shift = exponent - SUB_BUCKET_BITS;
+        long lowerBound = (long) (SUB_BUCKET_COUNT + index % SUB_BUCKET_COUNT) << shift;
+
+        return lowerBound + (1L << shift) - 1;
+    }
+}
@@ -0,0 +1,166 @@
+package com.price.processor.throttler;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Keeps the latest price per currency pair shared by all subscribers
+ * The producer writes a price once into the versioned slot of the pair and appends the pair identifier
+ * to the journal ring, so the cost of publishing does not depend on the number of subscribers.
+ * Subscribers read the journal from their own cursors. A cursor lapped by the producer
+ * falls back to compare the slot versions with the versions it has already taken
+ * The board is written by the single producer thread at a time, see <c>ShardedPriceBoard</c>
+ * As a shard the board keeps the slots only for the pairs which identifiers give its shard index,
+ * the slot index is the pair identifier without the shard bits
+ */
+final class LatestPriceBoard {
+
+    private static final int INITIAL_PAIRS_CAPACITY = 64;
+
+    private final int[] journal;
+    private final int journalMask;
+    private final int shardIndex;
+    private final int shardBits;
+    private volatile Slots slots = new Slots(INITIAL_PAIRS_CAPACITY);
+    private volatile long publishedSequence;
+
+    private static final class Slots {
+
+        private final AtomicLongArray versions;
+        private final AtomicLongArray rates;
+
+        private Slots(int capacity) {
+            versions = new AtomicLongArray(capacity);
+            rates = new AtomicLongArray(capacity);
+        }
+
+        private int capacity() {
+            return versions.length();
+        }
+    }
+
+    /**
+     * @param journalCapacity the number of the latest ticks kept in the journal, rounded up to the power of two
+     */
+    public LatestPriceBoard(int journalCapacity) {
+        this(journalCapacity, 0, 0);
+    }
+
+    /**
+     * @param journalCapacity the number of the latest ticks kept in the journal, rounded up to the power of two
+     * @param shardIndex the index of shard, the lower shard bits of pair identifiers published to the board
+     * @param shardBits the number of bits of shard index
+     */
+    public LatestPriceBoard(int journalCapacity, int shardIndex, int shardBits) {
+        int capacity = Integer.highestOneBit(Math.max(2, journalCapacity - 1)) << 1;
+        journal = new int[capacity];
+        journalMask = capacity - 1;
+        this.shardIndex = shardIndex;
+        this.shardBits = shardBits;
+    }
+
+    /**
+     * Writes the price to the slot of the pair and appends the pair to the journal
+     * @param pairId the identifier of currency pair
+     * @param rate the rate
+     * @return the version of pair slot, the number of ticks of the pair
+     */
+    public long publish(int pairId, double rate) {
+        var current = slots;
+        int slot = pairId >>> shardBits;
+
+        if (slot >= current.capacity()) {
+            current = grow(slot);
+        }
+
+        long version = current.versions.get(slot) + 1;
+        current.rates.set(slot, Double.doubleToRawLongBits(rate));
+        current.versions.set(slot, version);
+
+        long sequence = publishedSequence;
+        journal[(int) sequence & journalMask] = pairId;
+        publishedSequence = sequence + 1;
+
+        return version;
+    }
+
+    /**
+     * The number of ticks published since the board is created
+     * @return the sequence of the next tick
+     */
+    public long getPublishedSequence() {
+        return publishedSequence;
+    }
+
+    public int getJournalCapacity() {
+        return journal.length;
+    }
+
+    /**
+     * Gets the pair of the tick from journal, the tick might be overwritten if the reader is lapped
+     * @param sequence the sequence of the tick
+     * @return the identifier of currency pair
+     */
+    public int getJournalPairId(long sequence) {
+        return journal[(int) sequence & journalMask];
+    }
+
+    /**
+     * The number of pair slots, the slots of all published pairs are less than the capacity
+     * @return the number of pair slots
+     */
+    public int getSlotsCapacity() {
+        return slots.capacity();
+    }
+
+    /**
+     * @param pairId the identifier of currency pair published to the board
+     * @return the index of pair slot
+     */
+    public int getSlot(int pairId) {
+        return pairId >>> shardBits;
+    }
+
+    /**
+     * @param slot the index of pair slot
+     * @return the identifier of currency pair
+     */
+    public int getPairId(int slot) {
+        return slot << shardBits | shardIndex;
+    }
+
+    /**
+     * The number of ticks of the pair
+     * @param slot the index of pair slot
+     * @return the version of pair slot, zero if the pair has never been published
+     */
+    public long getVersion(int slot) {
+        var current = slots;
+
+        return slot < current.capacity()
+                ? current.versions.get(slot)
+                : 0L;
+    }
+
+    /**
+     * The latest rate of the pair
+     * @param slot the index of pair slot
+     * @return the rate
+     */
+    public double getRate(int slot) {
+        return Double.longBitsToDouble(slots.rates.get(slot));
+    }
+
+    private Slots grow(int slot) {
+        var current = slots;
+        var grown = new Slots(Math.max(slot + 1, current.capacity() * 2));
+
+        for (int i = 0; i < current.capacity(); i++) {
+            grown.rates.set(i, current.rates.get(i));
+            grown.versions.set(i, current.versions.get(i));
+        }
+
+        slots = grown;
+
+        return grown;
+    }
+}
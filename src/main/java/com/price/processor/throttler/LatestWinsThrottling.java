@@ -0,0 +1,78 @@
+package com.price.processor.throttler;
+
+import java.util.Arrays;
+
+/**
+ * Implements the throttling strategy which delivers pairs in the order they have become waiting for delivery
+ * The price of a pair already waiting replaces its rate and keeps its place in the queue,
+ * so the latest rate wins and the queue length is bounded by the number of pairs
+ * Push and pop cost O(1)
+ */
+public final class LatestWinsThrottling implements ThrottlingStrategy {
+
+    private static final int INITIAL_PAIRS_CAPACITY = 64;
+
+    private double[] rates = new double[INITIAL_PAIRS_CAPACITY];
+    private boolean[] pending = new boolean[INITIAL_PAIRS_CAPACITY];
+    private int[] pendingPairs = new int[INITIAL_PAIRS_CAPACITY];
+    private int head;
+    private int pendingCount;
+
+    @Override
+    public void pushItem(int pairId, double rate) {
+        if (pairId >= rates.length) {
+            int capacity = Math.max(pairId + 1, rates.length * 2);
+            rates = Arrays.copyOf(rates, capacity);
+            pending = Arrays.copyOf(pending, capacity);
+        }
+
+        rates[pairId] = rate;
+
+        if (!pending[pairId]) {
+            pending[pairId] = true;
+            enqueue(pairId);
+        }
+    }
+
+    @Override
+    public boolean popItem(MutableCurrencyPairPrice target) {
+
+        if (pendingCount == 0) {
+            return false;
+        }
+
+        int pairId = pendingPairs[head];
+        head = (head + 1) & (pendingPairs.length - 1);
+        pendingCount--;
+        pending[pairId] = false;
+        target.set(pairId, rates[pairId]);
+
+        return true;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return pendingCount == 0;
+    }
+
+    @Override
+    public int size() {
+        return pendingCount;
+    }
+
+    private void enqueue(int pairId) {
+        if (pendingCount == pendingPairs.length) {
+            var grown = new int[pendingPairs.length * 2];
+
+            for (int i = 0; i < pendingCount; i++) {
+                grown[i] = pendingPairs[(head + i) & (pendingPairs.length - 1)];
+            }
+
+            pendingPairs = grown;
+            head = 0;
+        }
+
+        pendingPairs[(head + pendingCount) & (pendingPairs.length - 1)] = pairId;
+        pendingCount++;
+    }
+}
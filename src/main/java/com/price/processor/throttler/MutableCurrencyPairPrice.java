@@ -0,0 +1,61 @@
+package com.price.processor.throttler;
+
+/**
+ * Implements a reusable item to move a price from throttling to consumer without allocation
+ * Is owned and reused by a single consumer
+ * <c>ThrottlingStrategy</c> fills the pair identifier and the rate, the currency pair and the age are set by the queue
+ */
+public final class MutableCurrencyPairPrice {
+
+    private int pairId;
+    private String ccyPair;
+    private double rate;
+    private long ageNanos;
+
+    public void set(int pairId, double rate) {
+        this.pairId = pairId;
+        this.rate = rate;
+    }
+
+    public int getPairId() {
+        return pairId;
+    }
+
+    void setCcyPair(String ccyPair) {
+        this.ccyPair = ccyPair;
+    }
+
+    public String getCcyPair() {
+        return ccyPair;
+    }
+
+    public double getRate() {
+        return rate;
+    }
+
+    void setAgeNanos(long ageNanos) {
+        this.ageNanos = ageNanos;
+    }
+
+    /**
+     * The age is taken from the latest tick of pair, see <c>PairTickClock</c>
+     * @return the time passed since the tick of price came to the throttler till it is polled
+     * or 0 if the ticks are not stamped
+     */
+    public long getAgeNanos() {
+        return ageNanos;
+    }
+
+    /**
+     * Makes an immutable copy of the current value
+     * @return the <c>CurrencyPairPrice</c> instance
+     */
+    public CurrencyPairPrice toCurrencyPairPrice() {
+        return new CurrencyPairPrice(ccyPair, rate, ageNanos);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Pair price {ccyPair %s rate= %f}", ccyPair, rate);
+    }
+}
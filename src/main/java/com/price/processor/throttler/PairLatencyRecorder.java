@@ -0,0 +1,97 @@
+package com.price.processor.throttler;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Records the tick to delivery latency per currency pair
+ * The drain records the time passed since the latest tick of pair stamped by <c>PairTickClock</c>
+ * as the price of the pair is delivered
+ * The table grows under the lock, the recording is lock-free
+ */
+final class PairLatencyRecorder {
+
+    private static final int INITIAL_PAIRS_CAPACITY = 64;
+
+    private final PairTickClock tickClock;
+
+    private volatile AtomicReferenceArray<LatencyHistogram> histograms = new AtomicReferenceArray<>(INITIAL_PAIRS_CAPACITY);
+
+    /**
+     * @param tickClock the clock of the latest ticks of pairs
+     */
+    public PairLatencyRecorder(PairTickClock tickClock) {
+        this.tickClock = tickClock;
+    }
+
+    /**
+     * Records the latency of the latest tick of pair
+     * @param pairId the identifier of currency pair
+     * @param nanos the time of delivery given by <c>System.nanoTime()</c>
+     */
+    public void recordDelivery(int pairId, long nanos) {
+        long tickedNanos = tickClock.getTickNanos(pairId);
+
+        if (tickedNanos == PairTickClock.NO_TICK) {
+            return;
+        }
+
+        var currentHistograms = histograms;
+
+        if (pairId >= currentHistograms.length()) {
+            currentHistograms = grow(pairId);
+        }
+
+        var histogram = currentHistograms.get(pairId);
+
+        if (histogram == null) {
+            histogram = createHistogram(pairId);
+        }
+
+        histogram.record(nanos - tickedNanos);
+    }
+
+    /**
+     * Takes the snapshot of latency of pair
+     * @param pairId the identifier of currency pair
+     * @return the <c>HistogramSnapshot</c> instance, it is empty if nothing is delivered
+     */
+    public HistogramSnapshot snapshot(int pairId) {
+        var currentHistograms = histograms;
+        var histogram = pairId < currentHistograms.length()
+                ? currentHistograms.get(pairId)
+                : null;
+
+        return histogram != null
+                ? histogram.snapshot()
+                : HistogramSnapshot.empty();
+    }
+
+    private synchronized LatencyHistogram createHistogram(int pairId) {
+        var histogram = histograms.get(pairId);
+
+        if (histogram == null) {
+            histogram = new LatencyHistogram();
+            histograms.set(pairId, histogram);
+        }
+
+        return histogram;
+    }
+
+    private synchronized AtomicReferenceArray<LatencyHistogram> grow(int pairId) {
+        var currentHistograms = histograms;
+
+        if (pairId < currentHistograms.length()) {
+            return currentHistograms;
+        }
+
+        var newHistograms = new AtomicReferenceArray<LatencyHistogram>(Math.max(pairId + 1, currentHistograms.length() * 2));
+
+        for (int i = 0; i < currentHistograms.length(); i++) {
+            newHistograms.set(i, currentHistograms.get(i));
+        }
+
+        histograms = newHistograms;
+
+        return newHistograms;
+    }
+}
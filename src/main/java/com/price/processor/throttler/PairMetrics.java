@@ -0,0 +1,66 @@
+package com.price.processor.throttler;
+
+/**
+ * The snapshot of metrics of a currency pair summed up over all the subscribers
+ */
+public final class PairMetrics {
+
+    private final String ccyPair;
+    private final int pairId;
+    private final long receivedTicks;
+    private final long deliveredPrices;
+    private final HistogramSnapshot tickToDelivery;
+
+    PairMetrics(String ccyPair, int pairId, long receivedTicks, long deliveredPrices, HistogramSnapshot tickToDelivery) {
+        this.ccyPair = ccyPair;
+        this.pairId = pairId;
+        this.receivedTicks = receivedTicks;
+        this.deliveredPrices = deliveredPrices;
+        this.tickToDelivery = tickToDelivery;
+    }
+
+    public String getCcyPair() {
+        return ccyPair;
+    }
+
+    public int getPairId() {
+        return pairId;
+    }
+
+    /**
+     * @return the number of ticks received by subscribers
+     */
+    public long getReceivedTicks() {
+        return receivedTicks;
+    }
+
+    /**
+     * @return the number of prices delivered to subscribers
+     */
+    public long getDeliveredPrices() {
+        return deliveredPrices;
+    }
+
+    /**
+     * The conflation ratio is the number of ticks per delivered price, 1 means nothing is conflated
+     * @return the conflation ratio or 0 if nothing is delivered
+     */
+    public double getConflationRatio() {
+        return deliveredPrices != 0
+                ? (double) receivedTicks / deliveredPrices
+                : 0;
+    }
+
+    /**
+     * @return the histogram of time from the latest tick till delivery, it is empty if metrics are disabled
+     */
+    public HistogramSnapshot getTickToDelivery() {
+        return tickToDelivery;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s { received= %d, delivered= %d, conflation= %.2f, tick to delivery= %s }",
+                ccyPair, receivedTicks, deliveredPrices, getConflationRatio(), tickToDelivery);
+    }
+}
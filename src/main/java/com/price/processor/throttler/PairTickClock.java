@@ -0,0 +1,95 @@
+package com.price.processor.throttler;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Keeps the ingress time of the latest tick of every currency pair, it is stamped by producers
+ * The queues conflate the ticks to the latest one per pair, so the stamp of pair is the ingress time
+ * of the price pending for delivery and the age of price is the time passed since it
+ * The age is an approximation as the stamp is not carried with the pending price: the tick stamped
+ * but not yet offered to the queue makes the pending price look younger, the price held by the coalescing window
+ * looks older than it is if no later tick of the pair came
+ * The ticks are stamped only while the metrics are enabled or a subscriber limits the age of prices,
+ * otherwise the pairs have not ticked and the ages are 0
+ * The table grows under the lock, the stamping is lock-free
+ * The grown table is published before the stamps are copied to it and the copy never overwrites a stamp,
+ * the producer which has stamped the old table sees the grown one and repeats the stamp in it,
+ * so no stamp is lost, while the table grows the pair might look as if it has not ticked
+ */
+final class PairTickClock {
+
+    static final long NO_TICK = 0;
+
+    private static final int INITIAL_PAIRS_CAPACITY = 64;
+
+    private volatile AtomicLongArray tickNanos = new AtomicLongArray(INITIAL_PAIRS_CAPACITY);
+
+    /**
+     * Stamps the time the tick of pair came
+     * @param pairId the identifier of currency pair
+     * @param nanos the time given by <c>System.nanoTime()</c>
+     */
+    public void stamp(int pairId, long nanos) {
+        var ticks = tickNanos;
+
+        if (pairId >= ticks.length()) {
+            ticks = grow(pairId);
+        }
+
+        // the stamp is ordered before the table is re-read, so either the copy or the repeated stamp keeps it
+        ticks.set(pairId, nanos);
+
+        var grownTicks = tickNanos;
+
+        while (grownTicks != ticks) {
+            ticks = grownTicks;
+            ticks.set(pairId, nanos);
+            grownTicks = tickNanos;
+        }
+    }
+
+    /**
+     * @param pairId the identifier of currency pair
+     * @return the time of the latest tick of pair or <c>NO_TICK</c> if the pair has not ticked
+     */
+    public long getTickNanos(int pairId) {
+        var ticks = tickNanos;
+
+        return pairId < ticks.length()
+                ? ticks.get(pairId)
+                : NO_TICK;
+    }
+
+    /**
+     * The age of the latest price of pair
+     * @param pairId the identifier of currency pair
+     * @param nowNanos the current time given by <c>System.nanoTime()</c>
+     * @return the time passed since the latest tick or 0 if the pair has not ticked
+     */
+    public long getAgeNanos(int pairId, long nowNanos) {
+        long tickedNanos = getTickNanos(pairId);
+
+        return tickedNanos != NO_TICK
+                ? Math.max(0, nowNanos - tickedNanos)
+                : 0;
+    }
+
+    private synchronized AtomicLongArray grow(int pairId) {
+        var ticks = tickNanos;
+
+        if (pairId < ticks.length()) {
+            return ticks;
+        }
+
+        var newTicks = new AtomicLongArray(Math.max(pairId + 1, ticks.length() * 2));
+
+        tickNanos = newTicks;
+
+        for (int i = 0; i < ticks.length(); i++) {
+            // the stamp repeated by producer in the grown table is newer than the copied one
+            newTicks.compareAndSet(i, NO_TICK, ticks.get(i));
+        }
+
+        return newTicks;
+    }
+}
@@ -0,0 +1,99 @@
+package com.price.processor.throttler;
+
+import java.util.Arrays;
+
+/**
+ * Implements a reusable batch of prices backed by primitive arrays
+ * Is filled by throttler and read by <c>BatchPriceProcessor</c>
+ */
+public final class PriceBatch {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private int[] pairIds = new int[INITIAL_CAPACITY];
+    private String[] ccyPairs = new String[INITIAL_CAPACITY];
+    private double[] rates = new double[INITIAL_CAPACITY];
+    private long[] ageNanos = new long[INITIAL_CAPACITY];
+    private int size;
+
+    /**
+     * The number of prices in the batch
+     * @return the number of prices
+     */
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * @param index the index of price in [0; size)
+     * @return the currency pair
+     */
+    public String getCcyPair(int index) {
+        return ccyPairs[index];
+    }
+
+    /**
+     * @param index the index of price in [0; size)
+     * @return the identifier of currency pair given by <c>CurrencyPairRegistry</c>
+     */
+    public int getPairId(int index) {
+        return pairIds[index];
+    }
+
+    /**
+     * @param index the index of price in [0; size)
+     * @return the rate
+     */
+    public double getRate(int index) {
+        return rates[index];
+    }
+
+    /**
+     * @param index the index of price in [0; size)
+     * @return the time passed since the tick of price came to the throttler till it is delivered
+     */
+    public long getAgeNanos(int index) {
+        return ageNanos[index];
+    }
+
+    void add(int pairId, double rate) {
+        if (size == rates.length) {
+            pairIds = Arrays.copyOf(pairIds, size * 2);
+            ccyPairs = Arrays.copyOf(ccyPairs, size * 2);
+            rates = Arrays.copyOf(rates, size * 2);
+            ageNanos = Arrays.copyOf(ageNanos, size * 2);
+        }
+
+        pairIds[size] = pairId;
+        rates[size] = rate;
+        ageNanos[size] = 0;
+        size++;
+    }
+
+    void setCcyPair(int index, String ccyPair) {
+        ccyPairs[index] = ccyPair;
+    }
+
+    void setAgeNanos(int index, long ageNanos) {
+        this.ageNanos[index] = ageNanos;
+    }
+
+    void clear() {
+        size = 0;
+    }
+
+    @Override
+    public String toString() {
+        var builder = new StringBuilder("Price batch {");
+
+        for (int i = 0; i < size; i++) {
+            builder.append(String.format(" %s= %f", ccyPairs[i], rates[i]));
+        }
+
+        return builder.append(" }").toString();
+    }
+}
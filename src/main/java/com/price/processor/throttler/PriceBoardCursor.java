@@ -0,0 +1,175 @@
+package com.price.processor.throttler;
+
+import java.util.Arrays;
+
+/**
+ * Implements the subscriber position on the shared <c>LatestPriceBoard</c> shards
+ * Keeps the sequence of the next journal tick to read per shard and the slot version taken per pair.
+ * Moves the prices published since the last read into the subscriber queue, where they are throttled,
+ * or into the fan-out of shard
+ * Is used by a single thread, the drain of subscriber or the fan-out thread
+ */
+final class PriceBoardCursor {
+
+    private static final int INITIAL_SLOTS_CAPACITY = 64;
+
+    private final LatestPriceBoard[] shards;
+    private final long[] nextSequences;
+    private final long[][] takenVersions;
+    private boolean snapshotPending;
+
+    /**
+     * Creates the cursor at the current end of the journal
+     * @param board the <c>LatestPriceBoard</c> instance
+     */
+    public PriceBoardCursor(LatestPriceBoard board) {
+        this(new LatestPriceBoard[] {board});
+    }
+
+    /**
+     * Creates the cursor at the current end of the journals of all shards
+     * @param board the <c>ShardedPriceBoard</c> instance
+     */
+    public PriceBoardCursor(ShardedPriceBoard board) {
+        this(board.getShards());
+    }
+
+    /**
+     * Creates the cursor which takes the latest price of every pair published so far on the first pull
+     * @param board the <c>ShardedPriceBoard</c> instance
+     * @param fromLatestPrices True to start from the latest prices or False to start at the end of the journals
+     */
+    public PriceBoardCursor(ShardedPriceBoard board, boolean fromLatestPrices) {
+        this(board.getShards());
+        snapshotPending = fromLatestPrices;
+    }
+
+    private PriceBoardCursor(LatestPriceBoard[] shards) {
+        this.shards = shards;
+        nextSequences = new long[shards.length];
+        takenVersions = new long[shards.length][INITIAL_SLOTS_CAPACITY];
+
+        for (int i = 0; i < shards.length; i++) {
+            nextSequences[i] = shards[i].getPublishedSequence();
+        }
+    }
+
+    /**
+     * Whether there are ticks published the cursor has not read yet
+     * @return True if there are ticks to read
+     */
+    public boolean hasPending() {
+        if (snapshotPending) {
+            return true;
+        }
+
+        for (int i = 0; i < shards.length; i++) {
+            if (shards[i].getPublishedSequence() != nextSequences[i]) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Offers the prices published since the last call to the sink
+     * @param sink the subscriber <c>CurrencyPairPriceQueue</c> or the <c>FanOutShard</c>
+     */
+    public void pullInto(PriceSink sink) {
+        if (snapshotPending) {
+            snapshotPending = false;
+            takeLatestPrices(sink);
+            return;
+        }
+
+        for (int i = 0; i < shards.length; i++) {
+            pullInto(i, sink);
+        }
+    }
+
+    /**
+     * Offers the latest prices the cursor has taken which have not been published again since,
+     * the prices published again are offered by the next pull
+     * Seeds the subscriber which joins the sink the cursor pulls into
+     * @param sink the subscriber to seed
+     */
+    public void offerTaken(PriceSink sink) {
+        for (int shardIndex = 0; shardIndex < shards.length; shardIndex++) {
+            var board = shards[shardIndex];
+            var shardTakenVersions = takenVersions[shardIndex];
+            int slotsCapacity = Math.min(board.getSlotsCapacity(), shardTakenVersions.length);
+
+            for (int slot = 0; slot < slotsCapacity; slot++) {
+                long takenVersion = shardTakenVersions[slot];
+
+                if (takenVersion > 0 && board.getVersion(slot) == takenVersion) {
+                    sink.offer(board.getPairId(slot), board.getRate(slot), 1);
+                }
+            }
+        }
+    }
+
+    /**
+     * Takes the latest price of every pair, the ticks published while taking are either taken
+     * or left to the next pull by their versions, so none is missed or taken twice
+     */
+    private void takeLatestPrices(PriceSink sink) {
+        for (int i = 0; i < shards.length; i++) {
+            long publishedSequence = shards[i].getPublishedSequence();
+            takeAllChanged(i, sink);
+            nextSequences[i] = publishedSequence;
+        }
+    }
+
+    private void pullInto(int shardIndex, PriceSink sink) {
+        var board = shards[shardIndex];
+        long nextSequence = nextSequences[shardIndex];
+        long publishedSequence = board.getPublishedSequence();
+
+        if (publishedSequence == nextSequence) {
+            return;
+        }
+
+        long capacity = board.getJournalCapacity();
+        boolean isLapped = publishedSequence - nextSequence > capacity;
+
+        for (long sequence = nextSequence; !isLapped && sequence < publishedSequence; sequence++) {
+            take(shardIndex, board.getSlot(board.getJournalPairId(sequence)), sink);
+        }
+
+        // the ticks read might have been overwritten while reading
+        if (isLapped || board.getPublishedSequence() - nextSequence > capacity) {
+            takeAllChanged(shardIndex, sink);
+        }
+
+        nextSequences[shardIndex] = publishedSequence;
+    }
+
+    private void takeAllChanged(int shardIndex, PriceSink sink) {
+        int slotsCapacity = shards[shardIndex].getSlotsCapacity();
+
+        for (int slot = 0; slot < slotsCapacity; slot++) {
+            take(shardIndex, slot, sink);
+        }
+    }
+
+    private void take(int shardIndex, int slot, PriceSink sink) {
+        var board = shards[shardIndex];
+        var shardTakenVersions = takenVersions[shardIndex];
+
+        if (slot >= shardTakenVersions.length) {
+            shardTakenVersions = Arrays.copyOf(shardTakenVersions, Math.max(slot + 1, shardTakenVersions.length * 2));
+            takenVersions[shardIndex] = shardTakenVersions;
+        }
+
+        // the version is read before the rate, so the rate is never older than the version taken
+        long version = board.getVersion(slot);
+        long ticksCount = version - shardTakenVersions[slot];
+
+        if (ticksCount > 0) {
+            shardTakenVersions[slot] = version;
+            sink.offer(board.getPairId(slot), board.getRate(slot), ticksCount);
+        }
+    }
+}
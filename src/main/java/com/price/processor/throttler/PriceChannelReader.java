@@ -0,0 +1,111 @@
+package com.price.processor.throttler;
+
+import com.price.processor.PriceProcessor;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Reads the throttled prices written by <c>PriceThrottler.subscribeChannel</c> in another process,
+ * i.e. from the socket connected to <c>PriceSocketServer</c> or from the file the prices were written to
+ * The frames are decoded from the reused buffer, a frame split by the read is completed by the next one
+ */
+public final class PriceChannelReader {
+
+    private static final int INITIAL_BUFFER_CAPACITY = 4096;
+    private static final int INITIAL_PAIRS_CAPACITY = 64;
+
+    private final ReadableByteChannel channel;
+
+    private ByteBuffer buffer = ByteBuffer.allocate(INITIAL_BUFFER_CAPACITY);
+    private String[] ccyPairs = new String[INITIAL_PAIRS_CAPACITY];
+
+    /**
+     * @param channel the channel to read the prices from
+     */
+    public PriceChannelReader(ReadableByteChannel channel) {
+        this.channel = channel;
+    }
+
+    /**
+     * Reads the channel once and passes the prices of the complete frames to the processor
+     * @param processor the <c>PriceProcessor</c> to take the prices
+     * @return True if the channel might have more prices or False at the end of stream
+     * @throws IOException if the channel fails
+     * @throws IllegalStateException if the frame is malformed
+     */
+    public boolean read(PriceProcessor processor) throws IOException {
+        if (!buffer.hasRemaining()) {
+            buffer = ByteBuffer.allocate(buffer.capacity() * 2).put(buffer.flip());
+        }
+
+        int count = channel.read(buffer);
+
+        buffer.flip();
+
+        while (readFrame(processor)) {
+            // the complete frames are passed to the processor
+        }
+
+        buffer.compact();
+
+        return count >= 0;
+    }
+
+    private boolean readFrame(PriceProcessor processor) {
+        if (buffer.remaining() < Byte.BYTES) {
+            return false;
+        }
+
+        int start = buffer.position();
+        byte type = buffer.get(start);
+
+        if (type == PriceFrames.PRICE_FRAME) {
+            if (buffer.remaining() < PriceFrames.PRICE_FRAME_SIZE) {
+                return false;
+            }
+
+            buffer.get();
+            int pairId = buffer.getInt();
+            double rate = buffer.getDouble();
+
+            if (pairId >= ccyPairs.length || ccyPairs[pairId] == null) {
+                throw new IllegalStateException("The price of pair " + pairId + " comes before the pair frame");
+            }
+
+            processor.onPrice(ccyPairs[pairId], rate);
+            return true;
+        }
+
+        if (type == PriceFrames.PAIR_FRAME) {
+            if (buffer.remaining() < PriceFrames.PAIR_FRAME_HEADER_SIZE) {
+                return false;
+            }
+
+            int nameLength = Short.toUnsignedInt(buffer.getShort(start + Byte.BYTES + Integer.BYTES));
+
+            if (buffer.remaining() < PriceFrames.PAIR_FRAME_HEADER_SIZE + nameLength) {
+                return false;
+            }
+
+            buffer.get();
+            int pairId = buffer.getInt();
+            buffer.getShort();
+
+            var name = new byte[nameLength];
+            buffer.get(name);
+
+            if (pairId >= ccyPairs.length) {
+                ccyPairs = Arrays.copyOf(ccyPairs, Math.max(pairId + 1, ccyPairs.length * 2));
+            }
+
+            ccyPairs[pairId] = new String(name, StandardCharsets.US_ASCII);
+            return true;
+        }
+
+        throw new IllegalStateException("The frame of unknown type " + type + " is read");
+    }
+}
@@ -0,0 +1,21 @@
+package com.price.processor.throttler;
+
+/**
+ * Describes the binary frames of the prices sent over a byte channel
+ * The pair frame names the currency pair of identifier once per channel, it precedes the first price of pair:
+ * type (1 byte), pair identifier (4 bytes), name length (2 bytes), ASCII name.
+ * The price frame is type (1 byte), pair identifier (4 bytes), rate (8 bytes)
+ * The numbers are big-endian
+ */
+final class PriceFrames {
+
+    static final byte PAIR_FRAME = 1;
+    static final byte PRICE_FRAME = 2;
+
+    static final int PAIR_FRAME_HEADER_SIZE = Byte.BYTES + Integer.BYTES + Short.BYTES;
+    static final int PRICE_FRAME_SIZE = Byte.BYTES + Integer.BYTES + Double.BYTES;
+    static final int MAX_NAME_LENGTH = 0xFFFF;
+
+    private PriceFrames() {
+    }
+}
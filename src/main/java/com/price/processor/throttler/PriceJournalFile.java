@@ -0,0 +1,261 @@
+package com.price.processor.throttler;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Keeps the latest rate and the decayed number of ticks of every currency pair in the memory mapped file
+ * The file has the fixed layout: the header and the record per pair at the offset given by the pair identifier,
+ * so the producer writes the tick to the mapped memory without a system call and the OS flushes the pages.
+ * As the throttler is restarted the records are read back to restore the latest prices and the tick rates of pairs
+ * The writes of concurrent producers are not ordered, the journal is the best effort state to warm up from
+ * The pairs which names are longer than the record keeps are not journaled
+ * The ticks are counted with the forward decay of the rank strategy: the tick weighs twice as much as the tick
+ * the half-life of ticks before, the weight is derived from the sequence of ticks kept in the header.
+ * The weights are restarted every epoch of ticks and the counts of older epochs are scaled down once they are seen,
+ * so the counts do not overflow and the restored rates follow the recent ticks as the live rank does
+ */
+final class PriceJournalFile implements AutoCloseable {
+
+    private final static Logger logger = LogManager.getLogger(PriceJournalFile.class);
+
+    private static final int MAGIC = 0x50524A32;
+    private static final int HEADER_SIZE = 16;
+    private static final int MAGIC_OFFSET = 0;
+    private static final int CAPACITY_OFFSET = 4;
+    private static final int SEQUENCE_OFFSET = 8;
+    private static final int RECORD_SIZE = 32;
+    private static final int RATE_OFFSET = 0;
+    private static final int TICKS_OFFSET = 8;
+    private static final int EPOCH_OFFSET = 16;
+    private static final int NAME_LENGTH_OFFSET = 20;
+    private static final int NAME_OFFSET = 21;
+    private static final int MAX_NAME_LENGTH = RECORD_SIZE - NAME_OFFSET;
+    private static final byte NOT_JOURNALED = -1;
+    private static final int HALF_LIFE_BITS = Long.numberOfTrailingZeros(DeliveryFreqRankThrottling.DEFAULT_HALF_LIFE_TICKS);
+    private static final long HALF_LIFE_MASK = (1L << HALF_LIFE_BITS) - 1;
+    private static final int EPOCH_HALF_LIVES = 64;
+    private static final int EPOCH_BITS = HALF_LIFE_BITS + Integer.numberOfTrailingZeros(EPOCH_HALF_LIVES);
+    private static final long EPOCH_MASK = (1L << EPOCH_BITS) - 1;
+    private static final int WEIGHT_STEP_BITS = 10;
+    private static final double[] WEIGHT_STEPS = new double[1 << WEIGHT_STEP_BITS];
+
+    static {
+        for (int i = 0; i < WEIGHT_STEPS.length; i++) {
+            WEIGHT_STEPS[i] = Math.pow(2, (double) i / WEIGHT_STEPS.length);
+        }
+    }
+
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final int pairsCapacity;
+
+    private PriceJournalFile(FileChannel channel, MappedByteBuffer buffer, int pairsCapacity) {
+        this.channel = channel;
+        this.buffer = buffer;
+        this.pairsCapacity = pairsCapacity;
+    }
+
+    /**
+     * Opens the journal file or creates it, the file of other layout is started over
+     * @param path the path of file
+     * @param pairsCapacity the number of pairs to keep, the ticks of pairs beyond are not recorded
+     * @return the <c>PriceJournalFile</c> instance
+     * @throws UncheckedIOException if the file cannot be mapped
+     */
+    public static PriceJournalFile open(Path path, int pairsCapacity) {
+        try {
+            var channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            long size = HEADER_SIZE + (long) pairsCapacity * RECORD_SIZE;
+            // the size is read before the mapping grows the file
+            long existingSize = channel.size();
+            var buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+
+            if (existingSize != size || buffer.getInt(MAGIC_OFFSET) != MAGIC || buffer.getInt(CAPACITY_OFFSET) != pairsCapacity) {
+                if (existingSize > 0) {
+                    logger.warn("The price journal " + path + " has another layout and is started over");
+                }
+
+                for (int i = 0; i < size; i += Long.BYTES) {
+                    buffer.putLong(i, 0);
+                }
+
+                buffer.putInt(CAPACITY_OFFSET, pairsCapacity);
+                buffer.putInt(MAGIC_OFFSET, MAGIC);
+            }
+
+            return new PriceJournalFile(channel, buffer, pairsCapacity);
+        } catch (IOException e) {
+            throw new UncheckedIOException("The price journal " + path + " cannot be opened", e);
+        }
+    }
+
+    /**
+     * Writes the tick of pair to the mapped memory
+     * @param pairId the identifier of currency pair
+     * @param ccyPair the currency pair, it is written once the pair is seen the first time
+     * @param rate the rate
+     */
+    public void record(int pairId, String ccyPair, double rate) {
+        if (pairId >= pairsCapacity) {
+            return;
+        }
+
+        int offset = HEADER_SIZE + pairId * RECORD_SIZE;
+        byte nameLength = buffer.get(offset + NAME_LENGTH_OFFSET);
+
+        if (nameLength == 0) {
+            nameLength = writeName(offset, ccyPair);
+        }
+
+        if (nameLength == NOT_JOURNALED) {
+            return;
+        }
+
+        long sequence = buffer.getLong(SEQUENCE_OFFSET);
+        buffer.putLong(SEQUENCE_OFFSET, sequence + 1);
+        int epoch = (int) (sequence >>> EPOCH_BITS);
+
+        buffer.putDouble(offset + RATE_OFFSET, rate);
+        buffer.putDouble(offset + TICKS_OFFSET, getTicks(offset, epoch) + getTickWeight(sequence));
+        buffer.putInt(offset + EPOCH_OFFSET, epoch);
+    }
+
+    /**
+     * Writes the record of pair, is used to restore the records by the identifiers of the current registry
+     * after the journal is cleared, so the tick rate is counted from the tick of weight one
+     * @param pairId the identifier of currency pair
+     * @param ccyPair the currency pair
+     * @param rate the latest rate
+     * @param tickRate the decayed number of ticks of pair
+     */
+    public void write(int pairId, String ccyPair, double rate, double tickRate) {
+        if (pairId >= pairsCapacity) {
+            return;
+        }
+
+        int offset = HEADER_SIZE + pairId * RECORD_SIZE;
+
+        if (writeName(offset, ccyPair) != NOT_JOURNALED) {
+            buffer.putDouble(offset + RATE_OFFSET, rate);
+            buffer.putDouble(offset + TICKS_OFFSET, tickRate);
+        }
+    }
+
+    /**
+     * Clears all the records and restarts the sequence of ticks
+     */
+    public void clear() {
+        buffer.putLong(SEQUENCE_OFFSET, 0);
+
+        for (int i = HEADER_SIZE; i < buffer.capacity(); i += Long.BYTES) {
+            buffer.putLong(i, 0);
+        }
+    }
+
+    /**
+     * The number of pairs the journal keeps
+     * @return the capacity of pairs
+     */
+    public int getPairsCapacity() {
+        return pairsCapacity;
+    }
+
+    /**
+     * @param index the index of record, it is the identifier of pair the record was written by
+     * @return the currency pair or null if the record is empty
+     */
+    public String getCcyPair(int index) {
+        int offset = HEADER_SIZE + index * RECORD_SIZE;
+        int length = buffer.get(offset + NAME_LENGTH_OFFSET);
+
+        if (length <= 0) {
+            return null;
+        }
+
+        var name = new byte[length];
+
+        for (int i = 0; i < length; i++) {
+            name[i] = buffer.get(offset + NAME_OFFSET + i);
+        }
+
+        return new String(name, StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * @param index the index of record
+     * @return the latest rate of pair
+     */
+    public double getRate(int index) {
+        return buffer.getDouble(HEADER_SIZE + index * RECORD_SIZE + RATE_OFFSET);
+    }
+
+    /**
+     * @param index the index of record
+     * @return the decayed number of ticks of pair, the latest tick of the journal weighs one
+     */
+    public double getTickRate(int index) {
+        long sequence = buffer.getLong(SEQUENCE_OFFSET);
+
+        if (sequence == 0) {
+            return buffer.getDouble(HEADER_SIZE + index * RECORD_SIZE + TICKS_OFFSET);
+        }
+
+        int epoch = (int) ((sequence - 1) >>> EPOCH_BITS);
+
+        return getTicks(HEADER_SIZE + index * RECORD_SIZE, epoch) / getTickWeight(sequence - 1);
+    }
+
+    /**
+     * Flushes the mapped memory to the file and closes it
+     */
+    @Override
+    public void close() {
+        try {
+            buffer.force();
+            channel.close();
+        } catch (IOException e) {
+            logger.warn("The price journal cannot be closed", e);
+        }
+    }
+
+    private double getTicks(int offset, int epoch) {
+        double ticks = buffer.getDouble(offset + TICKS_OFFSET);
+        int epochsPassed = epoch - buffer.getInt(offset + EPOCH_OFFSET);
+
+        // the weights of every epoch are restarted from one
+        return epochsPassed == 0 ? ticks : Math.scalb(ticks, -EPOCH_HALF_LIVES * Math.min(epochsPassed, 32));
+    }
+
+    private static double getTickWeight(long sequence) {
+        long ticksOfEpoch = sequence & EPOCH_MASK;
+        int step = (int) ((ticksOfEpoch & HALF_LIFE_MASK) >>> (HALF_LIFE_BITS - WEIGHT_STEP_BITS));
+
+        return Math.scalb(WEIGHT_STEPS[step], (int) (ticksOfEpoch >>> HALF_LIFE_BITS));
+    }
+
+    private byte writeName(int offset, String ccyPair) {
+        var name = ccyPair.getBytes(StandardCharsets.US_ASCII);
+
+        if (name.length > MAX_NAME_LENGTH) {
+            buffer.put(offset + NAME_LENGTH_OFFSET, NOT_JOURNALED);
+            return NOT_JOURNALED;
+        }
+
+        for (int i = 0; i < name.length; i++) {
+            buffer.put(offset + NAME_OFFSET + i, name[i]);
+        }
+
+        buffer.put(offset + NAME_LENGTH_OFFSET, (byte) name.length);
+
+        return (byte) name.length;
+    }
+}
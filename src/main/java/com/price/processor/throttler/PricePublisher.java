@@ -0,0 +1,50 @@
+package com.price.processor.throttler;
+
+import java.util.Objects;
+import java.util.concurrent.Flow;
+
+/**
+ * Implements the <c>Flow.Publisher</c> of throttled prices
+ * Every <c>Flow.Subscriber</c> is subscribed to the <c>PriceThrottler</c> with its own queue,
+ * so it takes the latest prices at its own pace
+ */
+final class PricePublisher implements Flow.Publisher<CurrencyPairPrice> {
+
+    private final PriceThrottler throttler;
+    private final SubscriptionSettings settings;
+
+    /**
+     * @param throttler the <c>PriceThrottler</c> instance
+     * @param settings the settings of every subscription
+     */
+    public PricePublisher(PriceThrottler throttler, SubscriptionSettings settings) {
+        this.throttler = throttler;
+        this.settings = settings;
+    }
+
+    /**
+     * Subscribes to the throttler, the prices are delivered as the subscriber requests them
+     * The subscriber which cancels the subscription in <c>onSubscribe</c> is not subscribed
+     * @param subscriber the <c>Flow.Subscriber</c> instance
+     */
+    @Override
+    public void subscribe(Flow.Subscriber<? super CurrencyPairPrice> subscriber) {
+        Objects.requireNonNull(subscriber, "subscriber");
+
+        var flowSubscription = new FlowPriceSubscription(subscriber, throttler);
+
+        // the subscriber gets onSubscribe before any other signal, so it is subscribed to the throttler after the call
+        subscriber.onSubscribe(flowSubscription);
+
+        if (flowSubscription.isDone()) {
+            return;
+        }
+
+        throttler.subscribe(flowSubscription, settings);
+
+        // the subscription cancelled while it was being subscribed is not left behind
+        if (flowSubscription.isDone()) {
+            throttler.unsubscribe(flowSubscription);
+        }
+    }
+}
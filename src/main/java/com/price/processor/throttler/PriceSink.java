@@ -0,0 +1,15 @@
+package com.price.processor.throttler;
+
+/**
+ * Describes the receiver of prices taken from the <c>LatestPriceBoard</c>
+ */
+interface PriceSink {
+
+    /**
+     * Takes the latest price of pair
+     * @param pairId the identifier of currency pair
+     * @param rate the latest rate
+     * @param ticksCount the number of ticks the rate conflates
+     */
+    void offer(int pairId, double rate, long ticksCount);
+}
@@ -0,0 +1,125 @@
+package com.price.processor.throttler;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.SocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ServerSocketChannel;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Serves the throttled prices to the subscribers living in other processes over TCP
+ * Every accepted connection is subscribed to the throttler with its own queue, so a slow remote reader
+ * gets the latest price per pair at its own pace and does not delay the others
+ * The remote subscriber reads the prices with <c>PriceChannelReader</c>
+ */
+public final class PriceSocketServer implements AutoCloseable {
+
+    private final static Logger logger = LogManager.getLogger(PriceSocketServer.class);
+
+    private static final long CLOSE_TIMEOUT_MILLIS = 1_000;
+
+    private final PriceThrottler throttler;
+    private final SubscriptionSettings settings;
+    private final ServerSocketChannel serverChannel;
+    private final Set<ChannelPriceSubscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final Thread thread;
+
+    private PriceSocketServer(PriceThrottler throttler, SubscriptionSettings settings, ServerSocketChannel serverChannel) {
+        this.throttler = throttler;
+        this.settings = settings;
+        this.serverChannel = serverChannel;
+        thread = ThreadFactories.newDaemonThreadFactory("price-throttler-socket-server-").newThread(this::acceptLoop);
+        thread.start();
+    }
+
+    /**
+     * Starts accepting the subscribers with the default settings
+     * @param throttler the <c>PriceThrottler</c> to subscribe the connections to
+     * @param address the address to listen on
+     * @return the <c>PriceSocketServer</c> instance
+     */
+    public static PriceSocketServer open(PriceThrottler throttler, SocketAddress address) {
+        return open(throttler, address, new SubscriptionSettings());
+    }
+
+    /**
+     * Starts accepting the subscribers
+     * @param throttler the <c>PriceThrottler</c> to subscribe the connections to
+     * @param address the address to listen on, i.e. the loopback one for the processes of the host
+     * @param settings the settings of every subscription
+     * @return the <c>PriceSocketServer</c> instance
+     * @throws UncheckedIOException if the address cannot be bound
+     */
+    public static PriceSocketServer open(PriceThrottler throttler, SocketAddress address, SubscriptionSettings settings) {
+        try {
+            return new PriceSocketServer(throttler, settings, ServerSocketChannel.open().bind(address));
+        } catch (IOException e) {
+            throw new UncheckedIOException("The price socket server cannot listen on " + address, e);
+        }
+    }
+
+    /**
+     * @return the address the server listens on, i.e. to get the port chosen by the system
+     * @throws UncheckedIOException if the server is closed
+     */
+    public SocketAddress getLocalAddress() {
+        try {
+            return serverChannel.getLocalAddress();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Stops accepting, unsubscribes the connections and closes them
+     */
+    @Override
+    public void close() {
+        try {
+            serverChannel.close();
+        } catch (IOException e) {
+            logger.warn("The price socket server cannot be closed", e);
+        }
+
+        try {
+            thread.join(CLOSE_TIMEOUT_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        for (var subscriber : subscribers) {
+            throttler.unsubscribe(subscriber);
+            subscriber.close();
+        }
+
+        subscribers.clear();
+    }
+
+    private void acceptLoop() {
+        while (true) {
+            try {
+                var channel = serverChannel.accept();
+                channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+
+                // the subscribers of the closed connections have unsubscribed themselves
+                subscribers.removeIf(subscriber -> !subscriber.isOpen());
+
+                var subscriber = new ChannelPriceSubscriber(channel, throttler, throttler.getPairRegistry());
+                subscribers.add(subscriber);
+                throttler.subscribe(subscriber, settings);
+
+                logger.info("The price subscriber is connected from " + channel.getRemoteAddress());
+            } catch (ClosedChannelException e) {
+                return;
+            } catch (IOException e) {
+                logger.warn("The price subscriber cannot be accepted", e);
+            }
+        }
+    }
+}
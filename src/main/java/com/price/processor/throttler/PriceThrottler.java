@@ -1,6 +1,11 @@
 package com.price.processor.throttler;
 
-import java.util.concurrent.*;
+import java.nio.channels.SelectableChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 
 import com.price.processor.PriceProcessor;
 import org.apache.logging.log4j.LogManager;
@@ -10,83 +15,474 @@ public class PriceThrottler implements PriceProcessor, AutoCloseable {
 
     private final static Logger logger = LogManager.getLogger(PriceThrottler.class);
 
-    private final ConcurrentHashMap<PriceProcessor, CompletableFuture<Void>> tasks = new ConcurrentHashMap<>();
-    private final ConcurrentHashMap<PriceProcessor, CurrencyPairPriceQueue> taskQueues = new ConcurrentHashMap<>();
-    private final ExecutorService taskPool = Executors.newCachedThreadPool();
+    private static final long TIMER_TICK_MILLIS = 1;
+    private static final int LATEST_PRICES_JOURNAL_CAPACITY = 2;
+
+    private final SubscriptionArray subscriptions = new SubscriptionArray();
+    private final DeliveryScheduler scheduler;
+    private final CurrencyPairRegistry pairRegistry;
+    private final ShardedPriceBoard priceBoard;
+    private final BoardSubscriptionNotifier boardNotifier;
+    private final FanOutShard[] fanOutShards;
+    private final ShardedPriceBoard latestPrices;
+    private final boolean snapshotOnSubscribe;
+    private final PriceJournalFile priceJournal;
+    private final PairTickClock tickClock = new PairTickClock();
+    private volatile boolean tickStamping;
+    private final PairLatencyRecorder latencyRecorder;
+    private final Supplier<? extends ThrottlingStrategy> throttlingStrategyFactory;
+    private TimerWheel timerWheel;
+    private DeliveryScheduler waitingScheduler;
+
+    public PriceThrottler() {
+        this(new ThrottlerSettings());
+    }
+
+    /**
+     * @param sharedWorkersCount the number of threads shared by fast subscribers
+     * @param slowCallThresholdMillis the <c>onPrice</c> duration of subscriber to move it to the dedicated thread
+     */
+    public PriceThrottler(int sharedWorkersCount, long slowCallThresholdMillis) {
+        this(new ThrottlerSettings()
+                .setSharedWorkersCount(sharedWorkersCount)
+                .setSlowCallThresholdMillis(slowCallThresholdMillis));
+    }
+
+    /**
+     * @param settings the <c>ThrottlerSettings</c> instance
+     */
+    public PriceThrottler(ThrottlerSettings settings) {
+        scheduler = createScheduler(settings);
+        pairRegistry = settings.getPairRegistry() != null
+                ? settings.getPairRegistry()
+                : new CurrencyPairRegistry();
+        throttlingStrategyFactory = settings.getThrottlingStrategyFactory();
+        latencyRecorder = settings.isMetricsEnabled()
+                ? new PairLatencyRecorder(tickClock)
+                : null;
+        tickStamping = settings.isMetricsEnabled();
+
+        snapshotOnSubscribe = settings.isSnapshotOnSubscribe();
+
+        if (settings.getIngestMode() == IngestMode.SHARED_PRICE_BOARD) {
+            priceBoard = new ShardedPriceBoard(settings.getPriceBoardJournalCapacity(), settings.getPriceBoardShardsCount());
+            boardNotifier = new BoardSubscriptionNotifier(priceBoard, subscriptions);
+        } else {
+            priceBoard = null;
+            boardNotifier = null;
+        }
+
+        if (settings.getIngestMode() == IngestMode.SHARDED_FAN_OUT) {
+            fanOutShards = new FanOutShard[Math.max(1, settings.getFanOutShardsCount())];
+
+            for (int i = 0; i < fanOutShards.length; i++) {
+                fanOutShards[i] = new FanOutShard(i,
+                        new ShardedPriceBoard(settings.getPriceBoardJournalCapacity(), settings.getPriceBoardShardsCount()),
+                        snapshotOnSubscribe);
+            }
+        } else {
+            fanOutShards = null;
+        }
+
+        // the boards keep the latest prices in the other modes
+        latestPrices = settings.getIngestMode() == IngestMode.QUEUE_PER_SUBSCRIBER && snapshotOnSubscribe
+                ? new ShardedPriceBoard(LATEST_PRICES_JOURNAL_CAPACITY, settings.getPriceBoardShardsCount())
+                : null;
+
+        if (settings.getPriceJournalPath() != null) {
+            var journal = PriceJournalFile.open(settings.getPriceJournalPath(), settings.getPriceJournalPairsCapacity());
+            restoreFromJournal(journal);
+            priceJournal = journal;
+        } else {
+            priceJournal = null;
+        }
+    }
 
     @Override
     public void onPrice(String ccyPair, double rate) {
+        onPrice(pairRegistry.getPairId(ccyPair), rate);
+    }
+
+    /**
+     * The fast path for producers which hold the currency pair identifier
+     * @param pairId the identifier of currency pair given by <c>getPairRegistry()</c>
+     * @param rate the rate
+     * @throws IllegalArgumentException if the pair identifier is not given by the registry
+     */
+    public void onPrice(int pairId, double rate) {
+        if (pairId < 0 || pairId >= pairRegistry.size()) {
+            throw new IllegalArgumentException("The currency pair " + pairId + " is not registered");
+        }
+
+        if (tickStamping) {
+            tickClock.stamp(pairId, System.nanoTime());
+        }
+
+        if (priceJournal != null) {
+            priceJournal.record(pairId, pairRegistry.getCcyPair(pairId), rate);
+        }
+
+        if (priceBoard != null) {
+            priceBoard.publish(pairId, rate);
+            boardNotifier.signal();
+            return;
+        }
+
+        if (fanOutShards != null) {
+            for (var fanOutShard : fanOutShards) {
+                fanOutShard.publish(pairId, rate);
+            }
+
+            return;
+        }
 
-        for (var entry: taskQueues.entrySet()) {
-            var queue = entry.getValue();
-            var processor = entry.getKey();
-            queue.offer(new CurrencyPairPrice(ccyPair, rate));
-            scheduleTask(processor);
+        if (latestPrices != null) {
+            long version = latestPrices.publish(pairId, rate);
+
+            for (var subscription : subscriptions.get()) {
+                subscription.offerVersion(pairId, rate, version);
+            }
+
+            return;
+        }
+
+        for (var subscription : subscriptions.get()) {
+            subscription.offer(pairId, rate);
+        }
+    }
+
+    /**
+     * The registry to map currency pairs to identifiers once at the ingress
+     * @return the <c>CurrencyPairRegistry</c> instance
+     */
+    public CurrencyPairRegistry getPairRegistry() {
+        return pairRegistry;
+    }
+
+    /**
+     * Takes the snapshot of metrics of subscribers and currency pairs, the delivery is not stopped
+     * @return the <c>ThrottlerMetrics</c> instance
+     */
+    public ThrottlerMetrics getMetrics() {
+        var subscribersMetrics = new ArrayList<SubscriberMetrics>();
+        var pairsCount = pairRegistry.size();
+        var pairsReceivedTicks = new long[pairsCount];
+        var pairsDeliveredPrices = new long[pairsCount];
+
+        for (var subscription : subscriptions.get()) {
+            subscribersMetrics.add(subscription.getMetrics());
+            subscription.getQueue().addPairCounters(pairsReceivedTicks, pairsDeliveredPrices);
+        }
+
+        var pairsMetrics = new ArrayList<PairMetrics>();
+
+        for (int pairId = 0; pairId < pairsCount; pairId++) {
+            if (pairsReceivedTicks[pairId] == 0) {
+                continue;
+            }
+
+            pairsMetrics.add(new PairMetrics(pairRegistry.getCcyPair(pairId), pairId,
+                    pairsReceivedTicks[pairId], pairsDeliveredPrices[pairId],
+                    latencyRecorder != null ? latencyRecorder.snapshot(pairId) : HistogramSnapshot.empty()));
         }
+
+        return new ThrottlerMetrics(subscribersMetrics, pairsMetrics);
+    }
+
+    /**
+     * The publisher of throttled prices for reactive pipelines, the <c>Flow.Subscriber</c> takes prices on its demand
+     * and the prices coming while the demand is zero are conflated
+     * The subscribers are completed as the throttler is closed
+     * @return the <c>Flow.Publisher</c> instance
+     */
+    public Flow.Publisher<CurrencyPairPrice> toPublisher() {
+        return toPublisher(new SubscriptionSettings());
+    }
+
+    /**
+     * The publisher of throttled prices which subscribes every <c>Flow.Subscriber</c> with the given settings
+     * @param settings the <c>SubscriptionSettings</c> instance
+     * @return the <c>Flow.Publisher</c> instance
+     */
+    public Flow.Publisher<CurrencyPairPrice> toPublisher(SubscriptionSettings settings) {
+        return new PricePublisher(this, settings);
+    }
+
+    /**
+     * Subscribes the byte channel with the default settings
+     * @param channel the channel in blocking mode
+     * @return the subscriber to unsubscribe the channel with
+     */
+    public PriceProcessor subscribeChannel(WritableByteChannel channel) {
+        return subscribeChannel(channel, new SubscriptionSettings());
+    }
+
+    /**
+     * Subscribes the byte channel, i.e. the socket or the file read by another process with <c>PriceChannelReader</c>
+     * The prices are written as binary frames while the latest price per pair waits in the queue of subscriber,
+     * so the slow reader of channel never makes the throttler buffer more than that
+     * @param channel the channel in blocking mode
+     * @param settings the <c>SubscriptionSettings</c> instance
+     * @return the subscriber to unsubscribe the channel with
+     * @throws IllegalArgumentException if the channel is in non-blocking mode
+     */
+    public PriceProcessor subscribeChannel(WritableByteChannel channel, SubscriptionSettings settings) {
+        if (channel instanceof SelectableChannel && !((SelectableChannel) channel).isBlocking()) {
+            throw new IllegalArgumentException("The channel must be in blocking mode");
+        }
+
+        var subscriber = new ChannelPriceSubscriber(channel, this, pairRegistry);
+        subscribe(subscriber, settings);
+
+        return subscriber;
     }
 
     @Override
     public void subscribe(PriceProcessor priceProcessor) {
-        var priceQueue = new CurrencyPairPriceQueue(getThrottlingStrategy());
-        taskQueues.put(priceProcessor, priceQueue);
+        subscribe(priceProcessor, new SubscriptionSettings());
+    }
+
+    /**
+     * Subscribes with the throttling strategy chosen by subscriber
+     * @param priceProcessor the subscriber
+     * @param throttlingStrategyFactory the factory of strategy, it must create a new instance on every call
+     */
+    public void subscribe(PriceProcessor priceProcessor, Supplier<? extends ThrottlingStrategy> throttlingStrategyFactory) {
+        subscribe(priceProcessor, new SubscriptionSettings().setThrottlingStrategyFactory(throttlingStrategyFactory));
+    }
+
+    /**
+     * Subscribes with the settings chosen by subscriber
+     * @param priceProcessor the subscriber
+     * @param settings the <c>SubscriptionSettings</c> instance
+     */
+    public void subscribe(PriceProcessor priceProcessor, SubscriptionSettings settings) {
+        var strategyFactory = settings.getThrottlingStrategyFactory() != null
+                ? settings.getThrottlingStrategyFactory()
+                : throttlingStrategyFactory;
+        var coalescingWindow = settings.getMinDeliveryIntervalNanos() > 0
+                ? new CoalescingWindow(settings.getMinDeliveryIntervalNanos(), getTimerWheel())
+                : null;
+        var strategy = strategyFactory.get();
+
+        if (priceJournal != null && strategy instanceof DeliveryFreqRankThrottling) {
+            ((DeliveryFreqRankThrottling) strategy).restoreTickRates(getJournaledTickRates());
+        }
+
+        // the ticks are stamped from now on as the subscriber limits the age of prices
+        if (settings.getMaxPriceAgeNanos() > 0) {
+            tickStamping = true;
+        }
+
+        var priceQueue = new CurrencyPairPriceQueue(strategy, pairRegistry, coalescingWindow,
+                tickClock, settings.getMaxPriceAgeNanos());
+        var boardCursor = priceBoard != null
+                ? new PriceBoardCursor(priceBoard, snapshotOnSubscribe)
+                : null;
+        var subscriptionScheduler = settings.getWaitStrategy() != null
+                ? getWaitingScheduler()
+                : scheduler;
+        var subscription = new Subscription(priceProcessor, priceQueue, subscriptionScheduler, boardCursor,
+                latencyRecorder, settings.getWaitStrategy());
+
+        if (coalescingWindow != null) {
+            coalescingWindow.setReleaseTask(subscription::releaseHeld);
+        }
+
+        if (priceProcessor instanceof FlowPriceSubscription) {
+            ((FlowPriceSubscription) priceProcessor).setWakeUpTask(subscription::wakeUp);
+        }
+
+        // the drain is registered before producers can reach the subscription, so the first price can run it
+        subscriptionScheduler.register(subscription);
+
+        if (!subscriptions.add(subscription)) {
+            subscriptionScheduler.unregister(subscription);
+            logger.info(priceProcessor.toString() + " is subscribed already");
+            return;
+        }
+
+        if (latestPrices != null) {
+            priceQueue.seed(latestPrices);
+        }
+
+        if (fanOutShards != null) {
+            getLeastLoadedFanOutShard().add(subscription);
+        }
+
+        if (snapshotOnSubscribe) {
+            subscription.wakeUp();
+        }
+
         logger.info(priceProcessor.toString() + " subscribed");
     }
 
+    /**
+     * Stops the delivery to subscriber, the call in progress on its own thread is interrupted
+     * The call in progress on the shared worker is not waited for, so it might complete after the method returns
+     * @param priceProcessor the subscriber
+     */
     @Override
     public void  unsubscribe(PriceProcessor priceProcessor) {
 
-        taskQueues.remove(priceProcessor);
+        var subscription = subscriptions.remove(priceProcessor);
+
+        if (subscription != null) {
+            stop(subscription);
+        }
+
+        if (subscription != null && fanOutShards != null) {
+            for (var fanOutShard : fanOutShards) {
+                fanOutShard.remove(priceProcessor);
+            }
+        }
+
         logger.info(priceProcessor.toString() + " unsubscribed");
     }
 
+    /**
+     * Lets the subscribers take the prices pending, then stops the drains which are still running
+     * The drains left running after timeout are cancelled and interrupted but not waited for,
+     * so the call in progress might complete after the method returns
+     */
     @Override
     public void close() {
 
-        for (var processor: tasks.keySet()) {
-            unsubscribe(processor);
-            tasks.remove(processor);
+        if (boardNotifier != null) {
+            boardNotifier.close();
+        }
+
+        if (fanOutShards != null) {
+            for (var fanOutShard : fanOutShards) {
+                fanOutShard.close();
+            }
         }
 
-        taskPool.shutdown();
+        scheduler.close();
+
+        synchronized (this) {
+            if (waitingScheduler != null) {
+                waitingScheduler.close();
+            }
+        }
+
+        for (var subscription : subscriptions.clear()) {
+            stop(subscription);
+
+            if (subscription.getProcessor() instanceof FlowPriceSubscription) {
+                ((FlowPriceSubscription) subscription.getProcessor()).complete();
+            }
+        }
+
+        synchronized (this) {
+            if (timerWheel != null) {
+                timerWheel.close();
+            }
+        }
+
+        if (priceJournal != null) {
+            priceJournal.close();
+        }
+    }
+
+    /**
+     * Publishes the latest prices kept by the journal if the snapshot on subscribe is on, so the subscribers are seeded
+     * with them, and writes the records back by the identifiers of the current registry.
+     * Is called by constructor before the journal records the ticks
+     * @param journal the <c>PriceJournalFile</c> instance
+     */
+    private void restoreFromJournal(PriceJournalFile journal) {
+        int capacity = journal.getPairsCapacity();
+        var ccyPairs = new String[capacity];
+        var rates = new double[capacity];
+        var tickRates = new double[capacity];
+
+        for (int i = 0; i < capacity; i++) {
+            ccyPairs[i] = journal.getCcyPair(i);
+            rates[i] = journal.getRate(i);
+            tickRates[i] = journal.getTickRate(i);
+        }
+
+        journal.clear();
+
+        for (int i = 0; i < capacity; i++) {
+            if (ccyPairs[i] == null) {
+                continue;
+            }
+
+            int pairId = pairRegistry.getPairId(ccyPairs[i]);
+            journal.write(pairId, ccyPairs[i], rates[i], tickRates[i]);
+
+            // without the snapshot the fan-out would deliver the restored prices as the new ticks
+            if (snapshotOnSubscribe) {
+                onPrice(pairId, rates[i]);
+            }
+        }
+    }
+
+    private double[] getJournaledTickRates() {
+        var tickRates = new double[Math.min(pairRegistry.size(), priceJournal.getPairsCapacity())];
+
+        for (int pairId = 0; pairId < tickRates.length; pairId++) {
+            tickRates[pairId] = priceJournal.getTickRate(pairId);
+        }
+
+        return tickRates;
     }
 
-    private void scheduleTask(PriceProcessor processor) {
+    /**
+     * The subscribers with their own wait strategy are served on their own platform threads
+     * as the waiting actively must not occupy the shared workers or the carriers of virtual threads
+     * @return the <c>DeliveryScheduler</c> instance
+     */
+    private synchronized DeliveryScheduler getWaitingScheduler() {
+        if (waitingScheduler == null) {
+            waitingScheduler = new ThreadPerSubscriberScheduler(ThreadFactories.newDaemonThreadFactory("price-throttler-waiting-"));
+        }
 
-        var task = tasks.get(processor);
+        return waitingScheduler;
+    }
 
-        if (task == null || task.isDone()) {
-            var queue = taskQueues.get(processor);
-            var runnableTask = createTask(processor, queue);
-            task = CompletableFuture.runAsync(runnableTask, taskPool);
+    /**
+     * The timer wheel is shared by the subscribers with limited delivery rate and is started by the first of them
+     * @return the <c>TimerWheel</c> instance
+     */
+    private synchronized TimerWheel getTimerWheel() {
+        if (timerWheel == null) {
+            timerWheel = new TimerWheel(TimeUnit.MILLISECONDS.toNanos(TIMER_TICK_MILLIS));
         }
 
-        tasks.put(processor, task);
+        return timerWheel;
     }
 
-    private Runnable createTask(PriceProcessor processor, CurrencyPairPriceQueue queue) {
-        return () -> {
+    /**
+     * The subscriber is kept by the shard it is added to, so the shards are balanced by the number of subscribers
+     * @return the <c>FanOutShard</c> instance
+     */
+    private FanOutShard getLeastLoadedFanOutShard() {
+        var leastLoaded = fanOutShards[0];
 
-            var isRunning = true;
+        for (var fanOutShard : fanOutShards) {
+            if (fanOutShard.getSubscriptionsCount() < leastLoaded.getSubscriptionsCount()) {
+                leastLoaded = fanOutShard;
+            }
+        }
 
-            do {
-                    CurrencyPairPrice pairPrice;
-                    try {
-                            pairPrice = queue.poll();
+        return leastLoaded;
+    }
 
-                            if (pairPrice == null) {
-                                isRunning = false;
-                            } else {
-                                processor.onPrice(pairPrice.getCcyPair(), pairPrice.getRate());
-                            }
-                    } catch (InterruptedException e) {
-                        logger.info("Task interrupted");
-                        isRunning = false;
-                    }
-            } while(isRunning);
-        };
+    private void stop(Subscription subscription) {
+        subscription.cancel();
+        subscription.getScheduler().unregister(subscription);
     }
 
-    private ThrottlingStrategy getThrottlingStrategy() {
-        return new DeliveryFreqRankThrottling();
+    private static DeliveryScheduler createScheduler(ThrottlerSettings settings) {
+        switch (settings.getDeliveryMode()) {
+            case VIRTUAL_THREAD_PER_SUBSCRIBER:
+                return new ThreadPerSubscriberScheduler(ThreadFactories.newVirtualThreadFactory("price-throttler-subscriber-"));
+            case SHARED_WORKERS:
+            default:
+                return new WorkerPoolScheduler(settings.getSharedWorkersCount(), settings.getSlowCallThresholdMillis());
+        }
     }
 }
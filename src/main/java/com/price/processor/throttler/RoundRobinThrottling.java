@@ -0,0 +1,90 @@
+package com.price.processor.throttler;
+
+import java.util.Arrays;
+
+/**
+ * Implements the throttling strategy which visits the pairs waiting for delivery in round-robin order
+ * Every pair is delivered at most once per round regardless of its income frequency,
+ * so rarely changing pairs wait no longer than one round
+ * Pairs waiting for delivery are marked in the bitmap which is scanned from the last delivered pair
+ * with <c>Long.numberOfTrailingZeros</c>, i.e. 64 pairs per step
+ */
+public final class RoundRobinThrottling implements ThrottlingStrategy {
+
+    private static final int INITIAL_PAIRS_CAPACITY = 64;
+
+    private double[] rates = new double[INITIAL_PAIRS_CAPACITY];
+    private long[] pendingPairs = new long[INITIAL_PAIRS_CAPACITY >>> 6];
+    private int pendingCount;
+    private int nextPairId;
+
+    @Override
+    public void pushItem(int pairId, double rate) {
+        if (pairId >= rates.length) {
+            int capacity = Math.max(pairId + 1, rates.length * 2);
+            rates = Arrays.copyOf(rates, capacity);
+            pendingPairs = Arrays.copyOf(pendingPairs, (capacity + 63) >>> 6);
+        }
+
+        rates[pairId] = rate;
+
+        int wordIndex = pairId >>> 6;
+        long bit = 1L << pairId;
+
+        if ((pendingPairs[wordIndex] & bit) == 0) {
+            pendingPairs[wordIndex] |= bit;
+            pendingCount++;
+        }
+    }
+
+    @Override
+    public boolean popItem(MutableCurrencyPairPrice target) {
+
+        if (pendingCount == 0) {
+            return false;
+        }
+
+        int pairId = findPendingFrom(nextPairId);
+
+        if (pairId < 0) {
+            pairId = findPendingFrom(0);
+        }
+
+        pendingPairs[pairId >>> 6] &= ~(1L << pairId);
+        pendingCount--;
+        nextPairId = pairId + 1;
+        target.set(pairId, rates[pairId]);
+
+        return true;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return pendingCount == 0;
+    }
+
+    @Override
+    public int size() {
+        return pendingCount;
+    }
+
+    private int findPendingFrom(int pairId) {
+        int wordIndex = pairId >>> 6;
+
+        if (wordIndex >= pendingPairs.length) {
+            return -1;
+        }
+
+        long word = pendingPairs[wordIndex] & (-1L << pairId);
+
+        while (word == 0) {
+            if (++wordIndex == pendingPairs.length) {
+                return -1;
+            }
+
+            word = pendingPairs[wordIndex];
+        }
+
+        return (wordIndex << 6) + Long.numberOfTrailingZeros(word);
+    }
+}
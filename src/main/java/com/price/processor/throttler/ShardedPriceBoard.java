@@ -0,0 +1,59 @@
+package com.price.processor.throttler;
+
+/**
+ * Splits the <c>LatestPriceBoard</c> into shards by currency pair for concurrent producers
+ * The shard is chosen by the lower bits of pair identifier and is written under its own lock,
+ * so the producers of pairs in different shards do not contend and the ingest scales with the number of feeds
+ */
+final class ShardedPriceBoard {
+
+    private final LatestPriceBoard[] shards;
+    private final int shardMask;
+
+    /**
+     * @param journalCapacity the number of the latest ticks kept in the journal of every shard
+     * @param shardsCount the number of shards, rounded up to the power of two
+     */
+    public ShardedPriceBoard(int journalCapacity, int shardsCount) {
+        int shardBits = 32 - Integer.numberOfLeadingZeros(Math.max(1, shardsCount) - 1);
+
+        shards = new LatestPriceBoard[1 << shardBits];
+        shardMask = shards.length - 1;
+
+        for (int i = 0; i < shards.length; i++) {
+            shards[i] = new LatestPriceBoard(journalCapacity, i, shardBits);
+        }
+    }
+
+    /**
+     * Writes the price to the shard of the pair, is safe to call from many producers
+     * @param pairId the identifier of currency pair
+     * @param rate the rate
+     * @return the version of pair slot, the number of ticks of the pair
+     */
+    public long publish(int pairId, double rate) {
+        var shard = shards[pairId & shardMask];
+
+        synchronized (shard) {
+            return shard.publish(pairId, rate);
+        }
+    }
+
+    /**
+     * The number of ticks published to all the shards since the board is created
+     * @return the sum of shard sequences
+     */
+    public long getPublishedSequence() {
+        long sequence = 0;
+
+        for (var shard : shards) {
+            sequence += shard.getPublishedSequence();
+        }
+
+        return sequence;
+    }
+
+    LatestPriceBoard[] getShards() {
+        return shards;
+    }
+}
@@ -0,0 +1,80 @@
+package com.price.processor.throttler;
+
+import com.price.processor.PriceProcessor;
+
+/**
+ * The snapshot of metrics of a subscriber
+ */
+public final class SubscriberMetrics {
+
+    private final PriceProcessor subscriber;
+    private final SubscriberTier tier;
+    private final int pendingPrices;
+    private final long receivedTicks;
+    private final long deliveredPrices;
+    private final long skippedPrices;
+    private final HistogramSnapshot serviceTime;
+
+    SubscriberMetrics(PriceProcessor subscriber, SubscriberTier tier, int pendingPrices,
+                      long receivedTicks, long deliveredPrices, long skippedPrices, HistogramSnapshot serviceTime) {
+        this.subscriber = subscriber;
+        this.tier = tier;
+        this.pendingPrices = pendingPrices;
+        this.receivedTicks = receivedTicks;
+        this.deliveredPrices = deliveredPrices;
+        this.skippedPrices = skippedPrices;
+        this.serviceTime = serviceTime;
+    }
+
+    public PriceProcessor getSubscriber() {
+        return subscriber;
+    }
+
+    /**
+     * @return the tier the subscriber is classified at the moment
+     */
+    public SubscriberTier getTier() {
+        return tier;
+    }
+
+    /**
+     * @return the number of prices waiting for delivery i.e. the queue depth
+     */
+    public int getPendingPrices() {
+        return pendingPrices;
+    }
+
+    /**
+     * @return the number of ticks received for the subscriber
+     */
+    public long getReceivedTicks() {
+        return receivedTicks;
+    }
+
+    /**
+     * @return the number of prices delivered to the subscriber
+     */
+    public long getDeliveredPrices() {
+        return deliveredPrices;
+    }
+
+    /**
+     * @return the number of prices skipped without delivery as they are older than the staleness budget of subscriber
+     */
+    public long getSkippedPrices() {
+        return skippedPrices;
+    }
+
+    /**
+     * @return the histogram of <c>onPrice</c> durations, it is empty if metrics are disabled
+     */
+    public HistogramSnapshot getServiceTime() {
+        return serviceTime;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s { tier= %s, pending= %d, received= %d, delivered= %d, skipped= %d, service time= %s }",
+                subscriber, tier, pendingPrices, receivedTicks, deliveredPrices, skippedPrices, serviceTime);
+    }
+}
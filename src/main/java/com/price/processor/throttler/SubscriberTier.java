@@ -0,0 +1,22 @@
+package com.price.processor.throttler;
+
+/**
+ * Defines the class of subscriber by its online measured <c>onPrice</c> service time
+ */
+public enum SubscriberTier {
+    /**
+     * The service time is below the slow call threshold, the subscriber is served by the shared workers
+     */
+    FAST,
+
+    /**
+     * The service time is above the slow call threshold, the subscriber is served on its own thread
+     * till its service time drops again
+     */
+    SLOW,
+
+    /**
+     * The subscriber is in the call for longer than a second
+     */
+    STALLED
+}
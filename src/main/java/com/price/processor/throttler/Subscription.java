@@ -0,0 +1,329 @@
+package com.price.processor.throttler;
+
+import com.price.processor.PriceProcessor;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Keeps the delivery state of a subscriber
+ * The state flag guarantees the only drain per subscriber is scheduled or running at a time
+ * and no price offered to the queue is left undelivered
+ * The failure of subscriber to process a price is logged and the drain goes on with the next price
+ */
+final class Subscription {
+
+    private final static Logger logger = LogManager.getLogger(Subscription.class);
+
+    static final int IDLE = 0;
+    static final int SCHEDULED = 1;
+    static final int RUNNING = 2;
+
+    private static final long NOT_IN_CALL = Long.MIN_VALUE;
+    private static final long STALLED_CALL_NANOS = 1_000_000_000L;
+    private static final int SERVICE_TIME_DECAY_SHIFT = 3;
+
+    private final PriceProcessor processor;
+    private final BatchPriceProcessor batchProcessor;
+    private final FlowPriceSubscription flowSubscription;
+    private final CurrencyPairPriceQueue queue;
+    private final DeliveryScheduler scheduler;
+    private final PriceBoardCursor boardCursor;
+    private final PairLatencyRecorder latencyRecorder;
+    private final LatencyHistogram serviceTime;
+    private final WaitStrategy waitStrategy;
+    private final AtomicInteger state = new AtomicInteger(IDLE);
+    private final MutableCurrencyPairPrice pairPrice = new MutableCurrencyPairPrice();
+    private final PriceBatch priceBatch = new PriceBatch();
+
+    private volatile long callStartedNanos = NOT_IN_CALL;
+    private volatile boolean cancelled;
+    private long lastCallNanos;
+    private volatile long serviceTimeNanos;
+
+    // The fields are maintained by the scheduler
+    Runnable sharedLaneTask;
+    Runnable dedicatedLaneTask;
+    volatile boolean slow;
+    volatile boolean onSharedLane;
+    boolean compensated;
+    volatile Thread drainThread;
+
+    public Subscription(PriceProcessor processor, CurrencyPairPriceQueue queue, DeliveryScheduler scheduler) {
+        this(processor, queue, scheduler, null, null, null);
+    }
+
+    /**
+     * @param processor the subscriber
+     * @param queue the queue to throttle prices
+     * @param scheduler the scheduler to run the drain
+     * @param boardCursor the cursor to take prices from the shared board or null if prices are offered to the queue
+     * @param latencyRecorder the recorder of tick to delivery latency or null if metrics are disabled
+     * @param waitStrategy the way the drain on its own thread waits for prices or null to park right away
+     */
+    public Subscription(PriceProcessor processor, CurrencyPairPriceQueue queue, DeliveryScheduler scheduler,
+                        PriceBoardCursor boardCursor, PairLatencyRecorder latencyRecorder, WaitStrategy waitStrategy) {
+        this.processor = processor;
+        this.batchProcessor = processor instanceof BatchPriceProcessor
+                ? (BatchPriceProcessor) processor
+                : null;
+        this.flowSubscription = processor instanceof FlowPriceSubscription
+                ? (FlowPriceSubscription) processor
+                : null;
+        this.queue = queue;
+        this.scheduler = scheduler;
+        this.boardCursor = boardCursor;
+        this.latencyRecorder = latencyRecorder;
+        this.serviceTime = latencyRecorder != null
+                ? new LatencyHistogram()
+                : null;
+        this.waitStrategy = waitStrategy;
+    }
+
+    public PriceProcessor getProcessor() {
+        return processor;
+    }
+
+    public DeliveryScheduler getScheduler() {
+        return scheduler;
+    }
+
+    public WaitStrategy getWaitStrategy() {
+        return waitStrategy;
+    }
+
+    /**
+     * Offers price for delivery and schedules the drain if it is idle
+     * @param pairId the identifier of currency pair
+     * @param rate the rate
+     */
+    public void offer(int pairId, double rate) {
+        queue.offer(pairId, rate);
+        wakeUp();
+    }
+
+    /**
+     * Offers the tick stamped with the version of pair in the latest prices and schedules the drain if it is idle
+     * @param pairId the identifier of currency pair
+     * @param rate the rate
+     * @param version the version of pair given by <c>ShardedPriceBoard.publish</c>
+     */
+    public void offerVersion(int pairId, double rate, long version) {
+        queue.offerVersion(pairId, rate, version);
+        wakeUp();
+    }
+
+    /**
+     * Offers the price which conflates several ticks for delivery and schedules the drain if it is idle
+     * @param pairId the identifier of currency pair
+     * @param rate the latest rate
+     * @param ticksCount the number of ticks the rate conflates
+     */
+    public void offer(int pairId, double rate, long ticksCount) {
+        queue.offer(pairId, rate, ticksCount);
+        wakeUp();
+    }
+
+    /**
+     * Schedules the drain if it is idle
+     */
+    public void wakeUp() {
+        if (state.get() == IDLE && state.compareAndSet(IDLE, SCHEDULED)) {
+            scheduler.execute(this);
+        }
+    }
+
+    /**
+     * Releases the prices held by the coalescing window of the queue and schedules the drain, is run by timer
+     */
+    void releaseHeld() {
+        if (queue.releaseHeld() && !cancelled) {
+            wakeUp();
+        }
+    }
+
+    /**
+     * Stops the delivery, the price being processed is the last one
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Delivers the next price to the subscriber, the batch subscriber gets all the pending prices at once
+     * The flow subscriber gets the price only while there is its demand
+     * Is called by the drain only
+     * @return True if the price is delivered, even if the subscriber has failed to process it,
+     * or False if there is nothing to deliver
+     */
+    boolean deliverNext() {
+        if (boardCursor != null) {
+            boardCursor.pullInto(queue);
+        }
+
+        if (cancelled || flowSubscription != null && !flowSubscription.hasDemand()) {
+            return false;
+        }
+
+        if (batchProcessor != null) {
+            if (!queue.poll(priceBatch)) {
+                return false;
+            }
+        } else if (!queue.poll(pairPrice)) {
+            return false;
+        }
+
+        long startedNanos = System.nanoTime();
+        callStartedNanos = startedNanos;
+
+        if (latencyRecorder != null) {
+            recordDeliveryLatency(startedNanos);
+        }
+
+        try {
+            if (batchProcessor != null) {
+                batchProcessor.onPrices(priceBatch);
+            } else if (flowSubscription != null) {
+                flowSubscription.onPrice(pairPrice.toCurrencyPairPrice());
+            } else {
+                processor.onPrice(pairPrice.getCcyPair(), pairPrice.getRate());
+            }
+        } catch (RuntimeException e) {
+            logger.error(processor + " has failed to process the price", e);
+        } finally {
+            callStartedNanos = NOT_IN_CALL;
+        }
+
+        lastCallNanos = System.nanoTime() - startedNanos;
+        updateServiceTime(lastCallNanos);
+
+        if (serviceTime != null) {
+            serviceTime.record(lastCallNanos);
+        }
+
+        return true;
+    }
+
+    private void recordDeliveryLatency(long nanos) {
+        if (batchProcessor != null) {
+            for (int i = 0; i < priceBatch.size(); i++) {
+                latencyRecorder.recordDelivery(priceBatch.getPairId(i), nanos);
+            }
+        } else {
+            latencyRecorder.recordDelivery(pairPrice.getPairId(), nanos);
+        }
+    }
+
+    /**
+     * Takes the metrics of subscriber without stopping the delivery
+     * @return the <c>SubscriberMetrics</c> instance
+     */
+    SubscriberMetrics getMetrics() {
+        return new SubscriberMetrics(processor, getTier(System.nanoTime()),
+                queue.size(), queue.getReceivedTicks(), queue.getDeliveredPrices(), queue.getSkippedPrices(),
+                serviceTime != null ? serviceTime.snapshot() : HistogramSnapshot.empty());
+    }
+
+    CurrencyPairPriceQueue getQueue() {
+        return queue;
+    }
+
+    /**
+     * The service time rises to a longer call at once and decays by 1/8 with every shorter call,
+     * so a single slow call classifies the subscriber as slow and it takes a run of fast calls to reclassify it back
+     * @param callNanos the duration of the last call
+     */
+    private void updateServiceTime(long callNanos) {
+        long current = serviceTimeNanos;
+
+        serviceTimeNanos = callNanos >= current
+                ? callNanos
+                : current - ((current - callNanos) >> SERVICE_TIME_DECAY_SHIFT);
+    }
+
+    /**
+     * The online estimate of <c>onPrice</c> duration
+     * @return the duration in nanoseconds
+     */
+    long getServiceTimeNanos() {
+        return serviceTimeNanos;
+    }
+
+    /**
+     * The tier of subscriber, it is SLOW while the scheduler serves it on the dedicated thread
+     * @param nowNanos the current time
+     * @return the <c>SubscriberTier</c> value
+     */
+    SubscriberTier getTier(long nowNanos) {
+        if (isInCallLongerThan(nowNanos, STALLED_CALL_NANOS)) {
+            return SubscriberTier.STALLED;
+        }
+
+        return slow ? SubscriberTier.SLOW : SubscriberTier.FAST;
+    }
+
+    /**
+     * The duration of the last <c>onPrice</c> call, is read by the drain only
+     * @return the duration in nanoseconds
+     */
+    long getLastCallNanos() {
+        return lastCallNanos;
+    }
+
+    /**
+     * Whether the subscriber is processing a price for longer than the threshold
+     * @param nowNanos the current time
+     * @param thresholdNanos the threshold of the call duration
+     * @return True if the call lasts longer than the threshold
+     */
+    boolean isInCallLongerThan(long nowNanos, long thresholdNanos) {
+        long startedNanos = callStartedNanos;
+
+        return startedNanos != NOT_IN_CALL && nowNanos - startedNanos > thresholdNanos;
+    }
+
+    /**
+     * Switches the drain to RUNNING state
+     */
+    void setRunning() {
+        state.set(RUNNING);
+    }
+
+    /**
+     * Switches the drain back to SCHEDULED state to be executed again, i.e. on another lane
+     */
+    void setScheduled() {
+        state.set(SCHEDULED);
+    }
+
+    /**
+     * Switches the drain to IDLE state as there is nothing to deliver or no demand of the flow subscriber.
+     * A price might be offered after the drain found the queue empty but before it became IDLE,
+     * in this case the drain takes it back
+     * @return True if the drain has to be continued otherwise False
+     */
+    boolean idleOrResume() {
+        state.set(IDLE);
+
+        return !cancelled && hasPending() && state.compareAndSet(IDLE, RUNNING);
+    }
+
+    private boolean hasPending() {
+        return (flowSubscription == null || flowSubscription.hasDemand())
+                && (!queue.isEmpty() || boardCursor != null && boardCursor.hasPending());
+    }
+
+    boolean isIdle() {
+        return state.get() == IDLE;
+    }
+
+    @Override
+    public String toString() {
+        return "Subscription of " + processor;
+    }
+}
@@ -0,0 +1,94 @@
+package com.price.processor.throttler;
+
+import com.price.processor.PriceProcessor;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Keeps the subscriptions in the flat immutable array which is swapped atomically on change
+ * The producer walks the array on every tick without lookups and locks,
+ * the rare subscribe and unsubscribe copy it
+ * The subscribers are matched by <c>equals</c>, as they are by the maps of subscriptions
+ */
+final class SubscriptionArray {
+
+    private static final Subscription[] EMPTY = new Subscription[0];
+
+    private final AtomicReference<Subscription[]> subscriptions = new AtomicReference<>(EMPTY);
+
+    /**
+     * The current subscriptions, the array must not be modified
+     * @return the array of subscriptions
+     */
+    public Subscription[] get() {
+        return subscriptions.get();
+    }
+
+    /**
+     * Adds the subscription unless its subscriber is subscribed already
+     * @param subscription the <c>Subscription</c> to add
+     * @return True if added otherwise False
+     */
+    public boolean add(Subscription subscription) {
+        while (true) {
+            var current = subscriptions.get();
+
+            if (indexOf(current, subscription.getProcessor()) >= 0) {
+                return false;
+            }
+
+            var updated = Arrays.copyOf(current, current.length + 1);
+            updated[current.length] = subscription;
+
+            if (subscriptions.compareAndSet(current, updated)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Removes the subscription of subscriber
+     * @param processor the subscriber
+     * @return the removed <c>Subscription</c> or null if the subscriber is not subscribed
+     */
+    public Subscription remove(PriceProcessor processor) {
+        while (true) {
+            var current = subscriptions.get();
+            int index = indexOf(current, processor);
+
+            if (index < 0) {
+                return null;
+            }
+
+            var updated = current.length == 1
+                    ? EMPTY
+                    : new Subscription[current.length - 1];
+
+            System.arraycopy(current, 0, updated, 0, index);
+            System.arraycopy(current, index + 1, updated, index, current.length - index - 1);
+
+            if (subscriptions.compareAndSet(current, updated)) {
+                return current[index];
+            }
+        }
+    }
+
+    /**
+     * Removes all the subscriptions
+     * @return the removed subscriptions
+     */
+    public Subscription[] clear() {
+        return subscriptions.getAndSet(EMPTY);
+    }
+
+    private static int indexOf(Subscription[] subscriptions, PriceProcessor processor) {
+        for (int i = 0; i < subscriptions.length; i++) {
+            if (subscriptions[i].getProcessor().equals(processor)) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+}
@@ -0,0 +1,85 @@
+package com.price.processor.throttler;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * The settings of a subscriber of <c>PriceThrottler</c>
+ */
+public final class SubscriptionSettings {
+
+    private Supplier<? extends ThrottlingStrategy> throttlingStrategyFactory;
+    private long minDeliveryIntervalNanos;
+    private WaitStrategy waitStrategy;
+    private long maxPriceAgeNanos;
+
+    public Supplier<? extends ThrottlingStrategy> getThrottlingStrategyFactory() {
+        return throttlingStrategyFactory;
+    }
+
+    /**
+     * @param throttlingStrategyFactory the factory of strategy, it must create a new instance on every call,
+     *                                  the one of <c>ThrottlerSettings</c> is used if not set
+     * @return the settings
+     */
+    public SubscriptionSettings setThrottlingStrategyFactory(Supplier<? extends ThrottlingStrategy> throttlingStrategyFactory) {
+        this.throttlingStrategyFactory = throttlingStrategyFactory;
+        return this;
+    }
+
+    public long getMinDeliveryIntervalNanos() {
+        return minDeliveryIntervalNanos;
+    }
+
+    /**
+     * Limits the delivery rate of every pair, i.e. 50 milliseconds flushes the changed pairs every 50 milliseconds
+     * A pair which has not been delivered within the interval is delivered right away
+     * @param minDeliveryIntervalMillis the minimum interval between deliveries of a pair, 0 does not limit the rate
+     * @return the settings
+     */
+    public SubscriptionSettings setMinDeliveryIntervalMillis(long minDeliveryIntervalMillis) {
+        this.minDeliveryIntervalNanos = TimeUnit.MILLISECONDS.toNanos(minDeliveryIntervalMillis);
+        return this;
+    }
+
+    /**
+     * Limits the delivery rate of every pair, i.e. 10 is at most 10 updates per second per pair
+     * @param maxDeliveriesPerSecond the maximum number of deliveries of a pair per second
+     * @return the settings
+     */
+    public SubscriptionSettings setMaxDeliveriesPerSecond(double maxDeliveriesPerSecond) {
+        this.minDeliveryIntervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / maxDeliveriesPerSecond);
+        return this;
+    }
+
+    public WaitStrategy getWaitStrategy() {
+        return waitStrategy;
+    }
+
+    /**
+     * Serves the subscriber on its own platform thread which waits for prices by the strategy,
+     * i.e. <c>WaitStrategies.busySpin()</c> saves the thread handoff for the latency critical subscriber
+     * @param waitStrategy the <c>WaitStrategy</c> instance or null to be served by the delivery mode of throttler
+     * @return the settings
+     */
+    public SubscriptionSettings setWaitStrategy(WaitStrategy waitStrategy) {
+        this.waitStrategy = waitStrategy;
+        return this;
+    }
+
+    public long getMaxPriceAgeNanos() {
+        return maxPriceAgeNanos;
+    }
+
+    /**
+     * Sets the staleness budget of subscriber, the price which waited longer since its tick is skipped
+     * without calling <c>onPrice</c>, i.e. the slow subscriber does not spend minutes on the prices of minutes ago
+     * The pair of skipped price is delivered again as it ticks
+     * @param maxPriceAgeMillis the maximum age of delivered price, 0 does not limit the age
+     * @return the settings
+     */
+    public SubscriptionSettings setMaxPriceAgeMillis(long maxPriceAgeMillis) {
+        this.maxPriceAgeNanos = TimeUnit.MILLISECONDS.toNanos(maxPriceAgeMillis);
+        return this;
+    }
+}
@@ -0,0 +1,60 @@
+package com.price.processor.throttler;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Creates the thread factories for throttler threads
+ */
+final class ThreadFactories {
+
+    private final static Logger logger = LogManager.getLogger(ThreadFactories.class);
+
+    private static final long FALLBACK_STACK_SIZE = 256 * 1024;
+
+    private ThreadFactories() {
+    }
+
+    /**
+     * Creates factory of daemon platform threads
+     * @param namePrefix the prefix of thread name
+     * @return the <c>ThreadFactory</c> instance
+     */
+    public static ThreadFactory newDaemonThreadFactory(String namePrefix) {
+        return newDaemonThreadFactory(namePrefix, 0);
+    }
+
+    /**
+     * Creates factory of virtual threads.
+     * The virtual threads are looked up reflectively to keep running on JDK 11,
+     * if they are not available the daemon platform threads with reduced stack are created
+     * @param namePrefix the prefix of thread name
+     * @return the <c>ThreadFactory</c> instance
+     */
+    public static ThreadFactory newVirtualThreadFactory(String namePrefix) {
+        try {
+            var builderClass = Class.forName("java.lang.Thread$Builder");
+            var builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            builder = builderClass.getMethod("name", String.class, long.class).invoke(builder, namePrefix, 1L);
+
+            return (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+        } catch (ReflectiveOperationException | UnsupportedOperationException e) {
+            logger.warn("Virtual threads are not supported by JDK " + Runtime.version() + ", platform threads are used");
+
+            return newDaemonThreadFactory(namePrefix, FALLBACK_STACK_SIZE);
+        }
+    }
+
+    private static ThreadFactory newDaemonThreadFactory(String namePrefix, long stackSize) {
+        var threadNumber = new AtomicInteger();
+
+        return runnable -> {
+            var thread = new Thread(null, runnable, namePrefix + threadNumber.incrementAndGet(), stackSize);
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
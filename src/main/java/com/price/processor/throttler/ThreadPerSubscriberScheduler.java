@@ -0,0 +1,137 @@
+package com.price.processor.throttler;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Runs the drain loop of each subscription on its own thread
+ * The loop parks while there is nothing to deliver and is unparked by the producer,
+ * so the thread is never returned to a pool and rescheduled.
+ * With virtual threads a blocked subscriber costs a few kilobytes of heap instead of a platform thread stack
+ * The <c>WaitStrategy</c> of subscription defines whether the loop waits actively before parking,
+ * while it waits actively the producer does not need to unpark it
+ */
+final class ThreadPerSubscriberScheduler implements DeliveryScheduler {
+
+    private static final long CLOSE_TIMEOUT_MILLIS = 1_000;
+
+    private final ThreadFactory threadFactory;
+    private final Set<Subscription> subscriptions = ConcurrentHashMap.newKeySet();
+    private volatile boolean closed;
+
+    /**
+     * @param threadFactory the factory of subscribers threads
+     */
+    public ThreadPerSubscriberScheduler(ThreadFactory threadFactory) {
+        this.threadFactory = threadFactory;
+    }
+
+    @Override
+    public void register(Subscription subscription) {
+        var thread = threadFactory.newThread(() -> drainLoop(subscription));
+        subscription.drainThread = thread;
+        subscriptions.add(subscription);
+        thread.start();
+    }
+
+    /**
+     * Stops the drain loop of subscription, the call in progress is interrupted
+     * unless the subscriber unsubscribes itself from the call
+     * @param subscription the <c>Subscription</c> instance
+     */
+    @Override
+    public void unregister(Subscription subscription) {
+        subscriptions.remove(subscription);
+        subscription.cancel();
+
+        if (subscription.drainThread != Thread.currentThread()) {
+            subscription.drainThread.interrupt();
+            LockSupport.unpark(subscription.drainThread);
+        }
+    }
+
+    @Override
+    public void execute(Subscription subscription) {
+        LockSupport.unpark(subscription.drainThread);
+    }
+
+    /**
+     * Lets the subscribers take the prices pending, the threads left running after timeout are interrupted
+     */
+    @Override
+    public void close() {
+        closed = true;
+        long deadlineNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(CLOSE_TIMEOUT_MILLIS);
+
+        for (var subscription : subscriptions) {
+            LockSupport.unpark(subscription.drainThread);
+        }
+
+        for (var subscription : subscriptions) {
+            try {
+                long timeoutMillis = TimeUnit.NANOSECONDS.toMillis(deadlineNanos - System.nanoTime());
+                subscription.drainThread.join(Math.max(1, timeoutMillis));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+
+        for (var subscription : subscriptions) {
+            subscription.cancel();
+            subscription.drainThread.interrupt();
+        }
+    }
+
+    private void drainLoop(Subscription subscription) {
+        var waitStrategy = subscription.getWaitStrategy() != null
+                ? subscription.getWaitStrategy()
+                : WaitStrategies.blocking();
+        int attempt = 0;
+
+        subscription.setRunning();
+
+        while (!subscription.isCancelled()) {
+            if (subscription.deliverNext()) {
+                attempt = 0;
+                continue;
+            }
+
+            if (closed) {
+                return;
+            }
+
+            long parkNanos = waitStrategy.idle(attempt++);
+
+            if (parkNanos == 0 || subscription.idleOrResume()) {
+                continue;
+            }
+
+            park(subscription, parkNanos);
+            subscription.setRunning();
+            attempt = 0;
+        }
+    }
+
+    private void park(Subscription subscription, long parkNanos) {
+        long deadlineNanos = System.nanoTime() + parkNanos;
+
+        while (subscription.isIdle() && !subscription.isCancelled() && !closed) {
+            if (parkNanos == WaitStrategy.PARK_UNTIL_SIGNALLED) {
+                LockSupport.park(this);
+                continue;
+            }
+
+            long remainingNanos = deadlineNanos - System.nanoTime();
+
+            if (remainingNanos <= 0) {
+                return;
+            }
+
+            LockSupport.parkNanos(this, remainingNanos);
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.price.processor.throttler;
+
+import java.util.List;
+
+/**
+ * The snapshot of metrics of <c>PriceThrottler</c>
+ */
+public final class ThrottlerMetrics {
+
+    private final List<SubscriberMetrics> subscribers;
+    private final List<PairMetrics> pairs;
+
+    ThrottlerMetrics(List<SubscriberMetrics> subscribers, List<PairMetrics> pairs) {
+        this.subscribers = List.copyOf(subscribers);
+        this.pairs = List.copyOf(pairs);
+    }
+
+    public List<SubscriberMetrics> getSubscribers() {
+        return subscribers;
+    }
+
+    /**
+     * @return the metrics of pairs which have ticked
+     */
+    public List<PairMetrics> getPairs() {
+        return pairs;
+    }
+
+    @Override
+    public String toString() {
+        return "Throttler metrics { subscribers= " + subscribers + ", pairs= " + pairs + " }";
+    }
+}
@@ -0,0 +1,204 @@
+package com.price.processor.throttler;
+
+import java.nio.file.Path;
+import java.util.function.Supplier;
+
+/**
+ * The settings of <c>PriceThrottler</c>
+ */
+public final class ThrottlerSettings {
+
+    private DeliveryMode deliveryMode = DeliveryMode.SHARED_WORKERS;
+    private IngestMode ingestMode = IngestMode.QUEUE_PER_SUBSCRIBER;
+    private int priceBoardJournalCapacity = 64 * 1024;
+    private int priceBoardShardsCount = 1;
+    private int fanOutShardsCount = Runtime.getRuntime().availableProcessors();
+    private boolean snapshotOnSubscribe;
+    private Path priceJournalPath;
+    private int priceJournalPairsCapacity = 4096;
+    private int sharedWorkersCount = Runtime.getRuntime().availableProcessors();
+    private long slowCallThresholdMillis = 1;
+    private CurrencyPairRegistry pairRegistry;
+    private boolean metricsEnabled = true;
+    private Supplier<? extends ThrottlingStrategy> throttlingStrategyFactory = DeliveryFreqRankThrottling::new;
+
+    public DeliveryMode getDeliveryMode() {
+        return deliveryMode;
+    }
+
+    /**
+     * @param deliveryMode the threads the subscribers are served on
+     * @return the settings
+     */
+    public ThrottlerSettings setDeliveryMode(DeliveryMode deliveryMode) {
+        this.deliveryMode = deliveryMode;
+        return this;
+    }
+
+    public IngestMode getIngestMode() {
+        return ingestMode;
+    }
+
+    /**
+     * @param ingestMode the way a price gets from producer to subscribers
+     * @return the settings
+     */
+    public ThrottlerSettings setIngestMode(IngestMode ingestMode) {
+        this.ingestMode = ingestMode;
+        return this;
+    }
+
+    public int getPriceBoardJournalCapacity() {
+        return priceBoardJournalCapacity;
+    }
+
+    /**
+     * @param priceBoardJournalCapacity the number of the latest ticks kept by the board in <c>SHARED_PRICE_BOARD</c> mode,
+     *                                  a subscriber lagging behind further rescans all the pairs
+     * @return the settings
+     */
+    public ThrottlerSettings setPriceBoardJournalCapacity(int priceBoardJournalCapacity) {
+        this.priceBoardJournalCapacity = priceBoardJournalCapacity;
+        return this;
+    }
+
+    public int getPriceBoardShardsCount() {
+        return priceBoardShardsCount;
+    }
+
+    /**
+     * @param priceBoardShardsCount the number of board shards written concurrently by producers in <c>SHARED_PRICE_BOARD</c> mode,
+     *                              rounded up to the power of two, the pairs are spread over the shards by identifier
+     * @return the settings
+     */
+    public ThrottlerSettings setPriceBoardShardsCount(int priceBoardShardsCount) {
+        this.priceBoardShardsCount = priceBoardShardsCount;
+        return this;
+    }
+
+    public int getFanOutShardsCount() {
+        return fanOutShardsCount;
+    }
+
+    /**
+     * @param fanOutShardsCount the number of shards the subscribers are split over in <c>SHARDED_FAN_OUT</c> mode,
+     *                          each shard fans the prices out on its own thread
+     * @return the settings
+     */
+    public ThrottlerSettings setFanOutShardsCount(int fanOutShardsCount) {
+        this.fanOutShardsCount = fanOutShardsCount;
+        return this;
+    }
+
+    public boolean isSnapshotOnSubscribe() {
+        return snapshotOnSubscribe;
+    }
+
+    /**
+     * @param snapshotOnSubscribe True to seed the new subscriber with the latest price of every pair,
+     *                            so the rarely changing prices are not missed till they change again,
+     *                            is False by default as the producer keeps the latest prices for it
+     * @return the settings
+     */
+    public ThrottlerSettings setSnapshotOnSubscribe(boolean snapshotOnSubscribe) {
+        this.snapshotOnSubscribe = snapshotOnSubscribe;
+        return this;
+    }
+
+    public Path getPriceJournalPath() {
+        return priceJournalPath;
+    }
+
+    /**
+     * @param priceJournalPath the memory mapped file to keep the latest prices and the tick rates of pairs
+     *                         to warm up from on restart or null if nothing is kept,
+     *                         the restored prices reach only the subscribers which take the snapshot on subscribe,
+     *                         otherwise the journal warms up the tick rates of pairs only
+     * @return the settings
+     */
+    public ThrottlerSettings setPriceJournalPath(Path priceJournalPath) {
+        this.priceJournalPath = priceJournalPath;
+        return this;
+    }
+
+    public int getPriceJournalPairsCapacity() {
+        return priceJournalPairsCapacity;
+    }
+
+    /**
+     * @param priceJournalPairsCapacity the number of pairs the price journal keeps, the file of other capacity is started over
+     * @return the settings
+     */
+    public ThrottlerSettings setPriceJournalPairsCapacity(int priceJournalPairsCapacity) {
+        this.priceJournalPairsCapacity = priceJournalPairsCapacity;
+        return this;
+    }
+
+    public int getSharedWorkersCount() {
+        return sharedWorkersCount;
+    }
+
+    /**
+     * @param sharedWorkersCount the number of threads shared by fast subscribers in <c>SHARED_WORKERS</c> mode
+     * @return the settings
+     */
+    public ThrottlerSettings setSharedWorkersCount(int sharedWorkersCount) {
+        this.sharedWorkersCount = sharedWorkersCount;
+        return this;
+    }
+
+    public long getSlowCallThresholdMillis() {
+        return slowCallThresholdMillis;
+    }
+
+    /**
+     * @param slowCallThresholdMillis the <c>onPrice</c> duration to move subscriber to the dedicated thread
+     *                                in <c>SHARED_WORKERS</c> mode
+     * @return the settings
+     */
+    public ThrottlerSettings setSlowCallThresholdMillis(long slowCallThresholdMillis) {
+        this.slowCallThresholdMillis = slowCallThresholdMillis;
+        return this;
+    }
+
+    public CurrencyPairRegistry getPairRegistry() {
+        return pairRegistry;
+    }
+
+    /**
+     * @param pairRegistry the registry of currency pairs to share between throttlers, the own one is created if not set
+     * @return the settings
+     */
+    public ThrottlerSettings setPairRegistry(CurrencyPairRegistry pairRegistry) {
+        this.pairRegistry = pairRegistry;
+        return this;
+    }
+
+    public boolean isMetricsEnabled() {
+        return metricsEnabled;
+    }
+
+    /**
+     * @param metricsEnabled whether the latency and service time histograms are recorded,
+     *                       the counters of queues are kept regardless
+     * @return the settings
+     */
+    public ThrottlerSettings setMetricsEnabled(boolean metricsEnabled) {
+        this.metricsEnabled = metricsEnabled;
+        return this;
+    }
+
+    public Supplier<? extends ThrottlingStrategy> getThrottlingStrategyFactory() {
+        return throttlingStrategyFactory;
+    }
+
+    /**
+     * @param throttlingStrategyFactory the factory of strategy for subscribers which do not choose their own,
+     *                                  it must create a new instance on every call
+     * @return the settings
+     */
+    public ThrottlerSettings setThrottlingStrategyFactory(Supplier<? extends ThrottlingStrategy> throttlingStrategyFactory) {
+        this.throttlingStrategyFactory = throttlingStrategyFactory;
+        return this;
+    }
+}
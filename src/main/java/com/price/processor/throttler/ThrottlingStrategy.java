@@ -3,23 +3,43 @@ package com.price.processor.throttler;
 /**
  * The throttling strategy
  * Describes the throttling
+ * An instance is owned by a single subscriber and is called under the lock of its queue,
+ * so it needs no synchronization of its own
  */
 public interface ThrottlingStrategy {
     /**
      * Adds value to throttling
-     * @param currencyPairPrice the <c>CurrencyPairPrice</c> value
+     * @param pairId the identifier of currency pair given by <c>CurrencyPairRegistry</c>
+     * @param rate the rate
      */
-    void pushItem(CurrencyPairPrice currencyPairPrice);
+    void pushItem(int pairId, double rate);
 
     /**
-     * Fetched throttled value
-     * @return The <c>CurrencyPairPrice</c> instance
+     * Adds value which conflates several ticks of the pair to throttling
+     * @param pairId the identifier of currency pair given by <c>CurrencyPairRegistry</c>
+     * @param rate the latest rate
+     * @param ticksCount the number of ticks the rate conflates
      */
-    CurrencyPairPrice popItem();
+    default void pushItem(int pairId, double rate, long ticksCount) {
+        pushItem(pairId, rate);
+    }
+
+    /**
+     * Fetches throttled value into the reusable target
+     * @param target the <c>MutableCurrencyPairPrice</c> to fill with the pair identifier and the rate
+     * @return True if the target is filled otherwise False
+     */
+    boolean popItem(MutableCurrencyPairPrice target);
 
     /**
      * Whether the value are ready to fetch
      * @return True if there is a value to fetch otherwise False
      */
     boolean isEmpty();
+
+    /**
+     * The number of values ready to fetch, the queue publishes it after every change, so it is expected to cost O(1)
+     * @return the number of values
+     */
+    int size();
 }
@@ -0,0 +1,162 @@
+package com.price.processor.throttler;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Implements the hashed timer wheel shared by all the subscribers
+ * Runs the tasks on its own thread with the resolution of one tick.
+ * Scheduling is lock-free and costs O(1), the thread parks while there is nothing scheduled
+ * The tasks must be short as they delay the following ones
+ */
+final class TimerWheel implements AutoCloseable {
+
+    private final static Logger logger = LogManager.getLogger(TimerWheel.class);
+
+    private static final int WHEEL_SIZE = 512;
+    private static final long CLOSE_TIMEOUT_MILLIS = 1_000;
+
+    private final long tickNanos;
+    private final long startNanos = System.nanoTime();
+    private final ConcurrentLinkedQueue<Timeout> scheduled = new ConcurrentLinkedQueue<>();
+    private final Timeout[] wheel = new Timeout[WHEEL_SIZE];
+    private final Thread thread;
+    private volatile boolean parked;
+    private volatile boolean closed;
+    private int timeoutsCount;
+
+    private static final class Timeout {
+        private final long deadlineNanos;
+        private final Runnable task;
+        private long deadlineTick;
+        private Timeout next;
+
+        Timeout(long deadlineNanos, Runnable task) {
+            this.deadlineNanos = deadlineNanos;
+            this.task = task;
+        }
+    }
+
+    /**
+     * @param tickNanos the resolution of timer
+     */
+    public TimerWheel(long tickNanos) {
+        this.tickNanos = tickNanos;
+        thread = ThreadFactories.newDaemonThreadFactory("price-throttler-timer-").newThread(this::timerLoop);
+        thread.start();
+    }
+
+    /**
+     * Schedules the task to run once at the deadline or up to one tick later
+     * @param deadlineNanos the time given by <c>System.nanoTime()</c>
+     * @param task the task to run
+     */
+    public void schedule(long deadlineNanos, Runnable task) {
+        scheduled.add(new Timeout(deadlineNanos, task));
+
+        if (parked) {
+            LockSupport.unpark(thread);
+        }
+    }
+
+    /**
+     * Stops the timer, the tasks scheduled are not run
+     */
+    @Override
+    public void close() {
+        closed = true;
+        LockSupport.unpark(thread);
+
+        try {
+            thread.join(CLOSE_TIMEOUT_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void timerLoop() {
+        long tick = currentTick();
+
+        while (!closed) {
+            transferScheduled(tick);
+            expire(tick);
+
+            if (timeoutsCount == 0) {
+                parked = true;
+
+                if (scheduled.isEmpty() && !closed) {
+                    LockSupport.park(this);
+                }
+
+                parked = false;
+                tick = currentTick();
+                continue;
+            }
+
+            long nextTickNanos = startNanos + (tick + 1) * tickNanos;
+            long waitNanos = nextTickNanos - System.nanoTime();
+
+            if (waitNanos > 0) {
+                LockSupport.parkNanos(this, waitNanos);
+            }
+
+            if (System.nanoTime() - nextTickNanos >= 0) {
+                tick++;
+            }
+        }
+    }
+
+    private long currentTick() {
+        return (System.nanoTime() - startNanos) / tickNanos;
+    }
+
+    private void transferScheduled(long tick) {
+        Timeout timeout;
+
+        while ((timeout = scheduled.poll()) != null) {
+            long deadlineTick = (timeout.deadlineNanos - startNanos + tickNanos - 1) / tickNanos;
+            timeout.deadlineTick = Math.max(deadlineTick, tick);
+
+            int slot = (int) (timeout.deadlineTick & (WHEEL_SIZE - 1));
+            timeout.next = wheel[slot];
+            wheel[slot] = timeout;
+            timeoutsCount++;
+        }
+    }
+
+    private void expire(long tick) {
+        int slot = (int) (tick & (WHEEL_SIZE - 1));
+        Timeout previous = null;
+        Timeout timeout = wheel[slot];
+
+        while (timeout != null) {
+            var next = timeout.next;
+
+            if (timeout.deadlineTick <= tick) {
+                if (previous == null) {
+                    wheel[slot] = next;
+                } else {
+                    previous.next = next;
+                }
+
+                timeoutsCount--;
+                run(timeout.task);
+            } else {
+                previous = timeout;
+            }
+
+            timeout = next;
+        }
+    }
+
+    private static void run(Runnable task) {
+        try {
+            task.run();
+        } catch (RuntimeException e) {
+            logger.error("The timer task has failed", e);
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.price.processor.throttler;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The built-in wait strategies
+ */
+public final class WaitStrategies {
+
+    private WaitStrategies() {
+    }
+
+    /**
+     * The drain spins on its core all the time, suits the latency critical subscriber which owns a core
+     * @return the <c>WaitStrategy</c> instance
+     */
+    public static WaitStrategy busySpin() {
+        return attempt -> {
+            Thread.onSpinWait();
+            return 0;
+        };
+    }
+
+    /**
+     * The drain spins for a while then yields the core to other threads on every attempt
+     * @param spinsCount the number of spins before yielding
+     * @return the <c>WaitStrategy</c> instance
+     */
+    public static WaitStrategy spinThenYield(int spinsCount) {
+        return attempt -> {
+            if (attempt < spinsCount) {
+                Thread.onSpinWait();
+            } else {
+                Thread.yield();
+            }
+
+            return 0;
+        };
+    }
+
+    /**
+     * The drain spins for a while then parks till the next price comes or the timeout is over
+     * @param spinsCount the number of spins before parking
+     * @param parkTimeout the longest time to park
+     * @param timeUnit the unit of timeout
+     * @return the <c>WaitStrategy</c> instance
+     */
+    public static WaitStrategy spinThenPark(int spinsCount, long parkTimeout, TimeUnit timeUnit) {
+        long parkTimeoutNanos = Math.max(1, timeUnit.toNanos(parkTimeout));
+
+        return attempt -> {
+            if (attempt < spinsCount) {
+                Thread.onSpinWait();
+                return 0;
+            }
+
+            return parkTimeoutNanos;
+        };
+    }
+
+    /**
+     * The drain parks right away till the next price comes, costs nothing while idle
+     * @return the <c>WaitStrategy</c> instance
+     */
+    public static WaitStrategy blocking() {
+        return attempt -> WaitStrategy.PARK_UNTIL_SIGNALLED;
+    }
+}
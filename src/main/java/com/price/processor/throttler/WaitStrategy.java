@@ -0,0 +1,22 @@
+package com.price.processor.throttler;
+
+/**
+ * Describes how the drain of subscriber waits for the next price while there is nothing to deliver
+ * The drain waiting actively sees the price without a thread handoff at the cost of a busy core,
+ * the parked drain is unparked by the producer
+ */
+public interface WaitStrategy {
+
+    /**
+     * Parks the drain till the next price comes without timeout
+     */
+    long PARK_UNTIL_SIGNALLED = Long.MAX_VALUE;
+
+    /**
+     * Is called by the drain every time it has found nothing to deliver
+     * @param attempt the number of calls since the last delivery
+     * @return 0 to check for the next price right away, otherwise the time in nanoseconds to park
+     * till the next price comes or <c>PARK_UNTIL_SIGNALLED</c>
+     */
+    long idle(int attempt);
+}
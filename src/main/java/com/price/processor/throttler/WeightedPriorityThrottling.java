@@ -0,0 +1,208 @@
+package com.price.processor.throttler;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.function.IntToDoubleFunction;
+
+/**
+ * Implements the throttling strategy where pairs carry the configured weight
+ * Pairs which are always waiting for delivery are delivered in proportion to their weights,
+ * i.e. the pair of weight 3 is delivered three times as often as the pair of weight 1, none is starved
+ * Every delivery moves the virtual finish time of pair by 1/weight,
+ * the pair waiting with the earliest finish time is the next to be returned
+ * Pairs waiting for delivery are kept in the indexed min heap, so push and pop cost O(log n)
+ * The configured weights are validated as the strategy is built, the weight given by the function
+ * which is not positive is logged and replaced by the default one, so the producer never fails on it
+ */
+public final class WeightedPriorityThrottling implements ThrottlingStrategy {
+
+    private final static Logger logger = LogManager.getLogger(WeightedPriorityThrottling.class);
+
+    private static final int INITIAL_PAIRS_CAPACITY = 64;
+    private static final double DEFAULT_WEIGHT = 1;
+
+    private final IntToDoubleFunction pairWeights;
+
+    private double[] rates = new double[INITIAL_PAIRS_CAPACITY];
+    private double[] costs = new double[INITIAL_PAIRS_CAPACITY];
+    private double[] finishTimes = new double[INITIAL_PAIRS_CAPACITY];
+    private int[] heapIndexes = new int[INITIAL_PAIRS_CAPACITY];
+    private int[] heap = new int[INITIAL_PAIRS_CAPACITY];
+    private int heapSize;
+    private double virtualTime;
+
+    /**
+     * @param pairWeights the weight of pair by its identifier, is asked once per pair,
+     *                    the weight which is not positive is replaced by 1
+     */
+    public WeightedPriorityThrottling(IntToDoubleFunction pairWeights) {
+        this.pairWeights = pairWeights;
+        Arrays.fill(heapIndexes, -1);
+    }
+
+    /**
+     * @param weights the weights of currency pairs
+     * @param defaultWeight the weight of pairs which are not in the weights
+     * @param pairRegistry the registry to resolve the currency pair by identifier
+     * @throws IllegalArgumentException if any weight is not positive
+     */
+    public WeightedPriorityThrottling(Map<String, Double> weights, double defaultWeight, CurrencyPairRegistry pairRegistry) {
+        this(pairId -> weights.getOrDefault(pairRegistry.getCcyPair(pairId), defaultWeight));
+
+        validateWeight("default", defaultWeight);
+        weights.forEach(WeightedPriorityThrottling::validateWeight);
+    }
+
+    @Override
+    public void pushItem(int pairId, double rate) {
+        if (pairId >= rates.length) {
+            grow(pairId);
+        }
+
+        if (costs[pairId] == 0) {
+            costs[pairId] = 1 / getWeight(pairId);
+        }
+
+        rates[pairId] = rate;
+
+        if (heapIndexes[pairId] < 0) {
+            finishTimes[pairId] = Math.max(finishTimes[pairId], virtualTime) + costs[pairId];
+            offerToHeap(pairId);
+        }
+    }
+
+    @Override
+    public boolean popItem(MutableCurrencyPairPrice target) {
+
+        if (heapSize == 0) {
+            return false;
+        }
+
+        int pairId = pollFromHeap();
+        virtualTime = finishTimes[pairId] - costs[pairId];
+        target.set(pairId, rates[pairId]);
+
+        return true;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return heapSize == 0;
+    }
+
+    @Override
+    public int size() {
+        return heapSize;
+    }
+
+    private double getWeight(int pairId) {
+        double weight = pairWeights.applyAsDouble(pairId);
+
+        if (!isValidWeight(weight)) {
+            logger.warn("The weight of pair " + pairId + " must be positive but is " + weight + ", "
+                    + DEFAULT_WEIGHT + " is used");
+            return DEFAULT_WEIGHT;
+        }
+
+        return weight;
+    }
+
+    private static void validateWeight(String ccyPair, double weight) {
+        if (!isValidWeight(weight)) {
+            throw new IllegalArgumentException("The weight of " + ccyPair + " must be positive but is " + weight);
+        }
+    }
+
+    private static boolean isValidWeight(double weight) {
+        return weight > 0 && !Double.isInfinite(weight);
+    }
+
+    private void grow(int pairId) {
+        int capacity = Math.max(pairId + 1, rates.length * 2);
+        int oldCapacity = rates.length;
+
+        rates = Arrays.copyOf(rates, capacity);
+        costs = Arrays.copyOf(costs, capacity);
+        finishTimes = Arrays.copyOf(finishTimes, capacity);
+        heapIndexes = Arrays.copyOf(heapIndexes, capacity);
+        heap = Arrays.copyOf(heap, capacity);
+        Arrays.fill(heapIndexes, oldCapacity, capacity, -1);
+    }
+
+    private void offerToHeap(int pairId) {
+        heapSize++;
+        moveInHeap(pairId, heapSize - 1);
+        siftUp(heapSize - 1);
+    }
+
+    private int pollFromHeap() {
+        int minPairId = heap[0];
+        heapSize--;
+
+        if (heapSize > 0) {
+            moveInHeap(heap[heapSize], 0);
+            siftDown(0);
+        }
+
+        heapIndexes[minPairId] = -1;
+
+        return minPairId;
+    }
+
+    private boolean isBefore(int pairId, int otherPairId) {
+        int ret = Double.compare(finishTimes[pairId], finishTimes[otherPairId]);
+
+        return ret != 0
+                ? ret < 0
+                : pairId < otherPairId;
+    }
+
+    private void siftUp(int index) {
+        int pairId = heap[index];
+
+        while (index > 0) {
+            int parentIndex = (index - 1) >>> 1;
+            int parent = heap[parentIndex];
+
+            if (!isBefore(pairId, parent)) {
+                break;
+            }
+
+            moveInHeap(parent, index);
+            index = parentIndex;
+        }
+
+        moveInHeap(pairId, index);
+    }
+
+    private void siftDown(int index) {
+        int pairId = heap[index];
+        int half = heapSize >>> 1;
+
+        while (index < half) {
+            int childIndex = 2 * index + 1;
+            int rightIndex = childIndex + 1;
+
+            if (rightIndex < heapSize && isBefore(heap[rightIndex], heap[childIndex])) {
+                childIndex = rightIndex;
+            }
+
+            if (!isBefore(heap[childIndex], pairId)) {
+                break;
+            }
+
+            moveInHeap(heap[childIndex], index);
+            index = childIndex;
+        }
+
+        moveInHeap(pairId, index);
+    }
+
+    private void moveInHeap(int pairId, int index) {
+        heap[index] = pairId;
+        heapIndexes[pairId] = index;
+    }
+}
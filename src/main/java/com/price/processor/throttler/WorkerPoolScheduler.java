@@ -0,0 +1,280 @@
+package com.price.processor.throttler;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.Set;
+import java.util.concurrent.*;
+
+/**
+ * Runs the drain tasks of subscriptions
+ * Fast subscribers share the bounded pool of workers.
+ * A subscriber which processes a price longer than the threshold is considered slow
+ * and moved to its own dedicated thread, so it never occupies the shared workers again.
+ * While a slow call is still in progress on a shared worker the pool is extended by one worker
+ * to keep the capacity for fast subscribers, the call in progress is checked every half of the threshold
+ * but no more often than every 10 milliseconds
+ * The number of threads is bounded by the shared workers count plus the number of slow subscribers
+ * The service time of subscriber is measured online, once it drops below half of the threshold
+ * the subscriber is moved back to the shared workers and its dedicated thread is stopped
+ */
+final class WorkerPoolScheduler implements DeliveryScheduler {
+
+    private final static Logger logger = LogManager.getLogger(WorkerPoolScheduler.class);
+
+    private static final long CLOSE_TIMEOUT_MILLIS = 1_000;
+    private static final long MIN_MONITOR_PERIOD_MILLIS = 10;
+
+    private final ThreadPoolExecutor sharedLane;
+    private final ScheduledExecutorService slowCallMonitor;
+    private final ConcurrentHashMap<Subscription, ExecutorService> dedicatedLanes = new ConcurrentHashMap<>();
+    private final ThreadFactory dedicatedLaneThreadFactory = ThreadFactories.newDaemonThreadFactory("price-throttler-slow-");
+    private final Set<Subscription> subscriptions = ConcurrentHashMap.newKeySet();
+    private final long slowCallThresholdNanos;
+    private final long fastServiceTimeNanos;
+    private volatile boolean closed;
+
+    /**
+     * @param sharedWorkersCount the number of workers shared by fast subscribers
+     * @param slowCallThresholdMillis the <c>onPrice</c> duration to consider subscriber slow
+     */
+    public WorkerPoolScheduler(int sharedWorkersCount, long slowCallThresholdMillis) {
+        slowCallThresholdNanos = TimeUnit.MILLISECONDS.toNanos(slowCallThresholdMillis);
+        fastServiceTimeNanos = slowCallThresholdNanos / 2;
+        sharedLane = new ThreadPoolExecutor(sharedWorkersCount, sharedWorkersCount, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), ThreadFactories.newDaemonThreadFactory("price-throttler-worker-"));
+        slowCallMonitor = Executors.newSingleThreadScheduledExecutor(ThreadFactories.newDaemonThreadFactory("price-throttler-monitor-"));
+
+        // the call in progress is checked no more often than the floor, so the short threshold does not keep the monitor busy
+        long monitorPeriodMillis = Math.max(MIN_MONITOR_PERIOD_MILLIS, slowCallThresholdMillis / 2);
+        slowCallMonitor.scheduleAtFixedRate(this::detectSlowCalls, monitorPeriodMillis, monitorPeriodMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void register(Subscription subscription) {
+        subscription.sharedLaneTask = () -> drain(subscription, false);
+        subscription.dedicatedLaneTask = () -> drain(subscription, true);
+        subscriptions.add(subscription);
+    }
+
+    /**
+     * Stops serving the cancelled subscription, the call in progress on its dedicated thread is interrupted
+     * unless the subscriber unsubscribes itself from the call
+     * The call in progress on the shared worker is left to complete as the worker is not owned by the subscription
+     * @param subscription the <c>Subscription</c> instance
+     */
+    @Override
+    public void unregister(Subscription subscription) {
+        subscriptions.remove(subscription);
+
+        var dedicatedLane = dedicatedLanes.remove(subscription);
+
+        if (dedicatedLane == null) {
+            return;
+        }
+
+        if (subscription.drainThread == Thread.currentThread()) {
+            dedicatedLane.shutdown();
+        } else {
+            dedicatedLane.shutdownNow();
+        }
+    }
+
+    /**
+     * Runs the drain task of subscription on the lane it belongs to
+     * @param subscription the <c>Subscription</c> to drain
+     */
+    @Override
+    public void execute(Subscription subscription) {
+        schedule(subscription);
+    }
+
+    /**
+     * Runs the drain task of subscription on the lane it belongs to
+     * @param subscription the <c>Subscription</c> to drain
+     * @return True if the task is scheduled or False if the scheduler is closed
+     */
+    private boolean schedule(Subscription subscription) {
+        if (closed) {
+            return false;
+        }
+
+        try {
+            if (subscription.slow) {
+                var dedicatedLane = dedicatedLanes.computeIfAbsent(subscription, this::newDedicatedLane);
+                dedicatedLane.execute(subscription.dedicatedLaneTask);
+
+                // the subscription might be unregistered concurrently, the lane must not outlive it
+                if (subscription.isCancelled() && dedicatedLanes.remove(subscription, dedicatedLane)) {
+                    dedicatedLane.shutdownNow();
+                }
+            } else {
+                sharedLane.execute(subscription.sharedLaneTask);
+            }
+
+            return true;
+        } catch (RejectedExecutionException e) {
+            logger.info(subscription + " is not scheduled as the lane is shut down");
+            return false;
+        }
+    }
+
+    /**
+     * Lets the subscribers take the prices pending, the drains left running after timeout are cancelled and interrupted
+     */
+    @Override
+    public void close() {
+        closed = true;
+        slowCallMonitor.shutdownNow();
+        sharedLane.shutdown();
+        dedicatedLanes.values().forEach(ExecutorService::shutdown);
+
+        long deadlineNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(CLOSE_TIMEOUT_MILLIS);
+
+        try {
+            sharedLane.awaitTermination(deadlineNanos - System.nanoTime(), TimeUnit.NANOSECONDS);
+
+            for (var dedicatedLane : dedicatedLanes.values()) {
+                dedicatedLane.awaitTermination(deadlineNanos - System.nanoTime(), TimeUnit.NANOSECONDS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        subscriptions.forEach(Subscription::cancel);
+        sharedLane.shutdownNow();
+        dedicatedLanes.values().forEach(ExecutorService::shutdownNow);
+    }
+
+    private void drain(Subscription subscription, boolean dedicatedLane) {
+        subscription.setRunning();
+        subscription.onSharedLane = !dedicatedLane;
+
+        // the thread of dedicated lane serves the only subscription, so it identifies the drain
+        if (dedicatedLane) {
+            subscription.drainThread = Thread.currentThread();
+        }
+
+        try {
+            do {
+                while (subscription.deliverNext()) {
+                    if (!dedicatedLane && (subscription.slow || subscription.getLastCallNanos() > slowCallThresholdNanos)
+                            && moveToDedicatedLane(subscription)) {
+                        return;
+                    }
+
+                    if (dedicatedLane && subscription.getServiceTimeNanos() < fastServiceTimeNanos
+                            && moveToSharedLane(subscription)) {
+                        return;
+                    }
+                }
+            } while (subscription.idleOrResume());
+        } finally {
+            // the drain left by the error of subscriber must not keep the worker added for its slow call
+            releaseCompensation(subscription);
+        }
+    }
+
+    /**
+     * Moves the slow subscriber to its dedicated lane, is run by the shared lane
+     * @param subscription the <c>Subscription</c> instance
+     * @return True if the drain is moved or False if the scheduler is closed and the drain goes on in place
+     */
+    private boolean moveToDedicatedLane(Subscription subscription) {
+        synchronized (subscription) {
+            subscription.slow = true;
+            subscription.onSharedLane = false;
+        }
+
+        releaseCompensation(subscription);
+
+        return reschedule(subscription);
+    }
+
+    /**
+     * Gives back the worker added to shared lane for the slow call of subscriber if there is one
+     * @param subscription the <c>Subscription</c> instance
+     */
+    private void releaseCompensation(Subscription subscription) {
+        synchronized (subscription) {
+            if (subscription.compensated) {
+                subscription.compensated = false;
+                releaseSharedLaneCompensation();
+            }
+        }
+    }
+
+    /**
+     * Moves the subscriber which has become fast back to the shared lane, is run by its dedicated lane
+     * @param subscription the <c>Subscription</c> instance
+     * @return True if the drain is moved or False if the scheduler is closed and the drain goes on in place
+     */
+    private boolean moveToSharedLane(Subscription subscription) {
+        synchronized (subscription) {
+            subscription.slow = false;
+        }
+
+        var dedicatedLane = dedicatedLanes.remove(subscription);
+
+        if (dedicatedLane != null) {
+            dedicatedLane.shutdown();
+        }
+
+        logger.info(subscription + " is fast again and moved back to the shared lane");
+
+        return reschedule(subscription);
+    }
+
+    private boolean reschedule(Subscription subscription) {
+        subscription.setScheduled();
+
+        if (schedule(subscription)) {
+            return true;
+        }
+
+        subscription.setRunning();
+        return false;
+    }
+
+    private void detectSlowCalls() {
+        long nowNanos = System.nanoTime();
+
+        for (var subscription : subscriptions) {
+            synchronized (subscription) {
+                if (subscription.slow
+                        || !subscription.onSharedLane
+                        || !subscription.isInCallLongerThan(nowNanos, slowCallThresholdNanos)) {
+                    continue;
+                }
+
+                subscription.slow = true;
+                subscription.compensated = true;
+                compensateSharedLane();
+            }
+
+            logger.info(subscription + " is slow, the shared lane is extended while the call is in progress");
+        }
+    }
+
+    /**
+     * Adds the worker to shared lane while the slow subscriber occupies one
+     */
+    private synchronized void compensateSharedLane() {
+        sharedLane.setMaximumPoolSize(sharedLane.getMaximumPoolSize() + 1);
+        sharedLane.setCorePoolSize(sharedLane.getCorePoolSize() + 1);
+    }
+
+    /**
+     * Gives back the worker added to shared lane when the slow subscriber has left it
+     */
+    private synchronized void releaseSharedLaneCompensation() {
+        sharedLane.setCorePoolSize(sharedLane.getCorePoolSize() - 1);
+        sharedLane.setMaximumPoolSize(sharedLane.getMaximumPoolSize() - 1);
+    }
+
+    private ExecutorService newDedicatedLane(Subscription subscription) {
+        logger.info(subscription + " is moved to the dedicated thread");
+
+        return Executors.newSingleThreadExecutor(dedicatedLaneThreadFactory);
+    }
+}
@@ -0,0 +1,52 @@
+package com.price.processor.throttler;
+
+import com.price.processor.PriceProcessor;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+
+/**
+ *  PriceProcessor implementation for testing purpose which blocks in <c>onPrice</c> till it is interrupted
+ */
+final class BlockingPriceProcessor implements PriceProcessor {
+
+    private final CountDownLatch callStarted = new CountDownLatch(1);
+    private final CountDownLatch callInterrupted = new CountDownLatch(1);
+    private final AtomicInteger callsCount = new AtomicInteger();
+
+    @Override
+    public void onPrice(String ccyPair, double rate) {
+        callsCount.incrementAndGet();
+        callStarted.countDown();
+
+        try {
+            Thread.sleep(Long.MAX_VALUE);
+        } catch (InterruptedException e) {
+            callInterrupted.countDown();
+        }
+    }
+
+    @Override
+    public void subscribe(PriceProcessor priceProcessor) {
+        //Left it empty on purpose
+    }
+
+    @Override
+    public void unsubscribe(PriceProcessor priceProcessor) {
+        //Left it empty on purpose
+    }
+
+    public int getCallsCount() {
+        return callsCount.get();
+    }
+
+    public boolean awaitCallStarted(long timeoutInMilliseconds) throws InterruptedException {
+        return callStarted.await(timeoutInMilliseconds, TimeUnit.MILLISECONDS);
+    }
+
+    public boolean awaitCallInterrupted(long timeoutInMilliseconds) throws InterruptedException {
+        return callInterrupted.await(timeoutInMilliseconds, TimeUnit.MILLISECONDS);
+    }
+}
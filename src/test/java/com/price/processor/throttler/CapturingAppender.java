@@ -0,0 +1,53 @@
+package com.price.processor.throttler;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.core.LogEvent;
+import org.apache.logging.log4j.core.Logger;
+import org.apache.logging.log4j.core.appender.AbstractAppender;
+import org.apache.logging.log4j.core.config.Property;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+
+/**
+ *  Appender implementation for testing purpose which keeps the messages logged by the class
+ */
+final class CapturingAppender extends AbstractAppender implements AutoCloseable {
+
+    private final Logger logger;
+    private final List<String> messages = new CopyOnWriteArrayList<>();
+
+    private CapturingAppender(Class<?> loggingClass) {
+        super("Capturing " + loggingClass.getSimpleName(), null, null, true, Property.EMPTY_ARRAY);
+        logger = (Logger) LogManager.getLogger(loggingClass);
+    }
+
+    /**
+     * Starts capturing the messages logged by the class
+     * @param loggingClass the class the logger is named by
+     * @return the <c>CapturingAppender</c> instance, it stops capturing on close
+     */
+    public static CapturingAppender capture(Class<?> loggingClass) {
+        var appender = new CapturingAppender(loggingClass);
+        appender.start();
+        appender.logger.addAppender(appender);
+
+        return appender;
+    }
+
+    @Override
+    public void append(LogEvent event) {
+        messages.add(event.getMessage().getFormattedMessage());
+    }
+
+    public List<String> getMessages() {
+        return messages;
+    }
+
+    @Override
+    public void close() {
+        logger.removeAppender(this);
+        stop();
+    }
+}
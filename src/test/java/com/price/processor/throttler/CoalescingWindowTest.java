@@ -0,0 +1,78 @@
+package com.price.processor.throttler;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CoalescingWindowTest {
+
+    private static final long INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+    @Test
+    public void pairDeliveredWithinIntervalShouldBeHeldTillItIsOver() {
+        // Arrange
+        var strategy = new LatestWinsThrottling();
+        var actual = new MutableCurrencyPairPrice();
+
+        try (var timerWheel = new TimerWheel(TimeUnit.MILLISECONDS.toNanos(1))) {
+            var window = new CoalescingWindow(INTERVAL_NANOS, timerWheel);
+            window.setReleaseTask(() -> { });
+            long deliveredNanos = System.nanoTime();
+
+            // Act
+            window.onDelivered(0, deliveredNanos, strategy);
+
+            var firstHeld = window.hold(0, 1.5, 1);
+            var secondHeld = window.hold(0, 1.6, 1);
+            var rareHeld = window.hold(1, 2.0, 1);
+            var releasedEarly = window.release(deliveredNanos + INTERVAL_NANOS - 1, strategy);
+            var releasedInTime = window.release(deliveredNanos + INTERVAL_NANOS, strategy);
+
+            // Assert
+            assertTrue(firstHeld);
+            assertTrue(secondHeld);
+            assertFalse(rareHeld);
+            assertFalse(releasedEarly);
+            assertTrue(releasedInTime);
+            assertTrue(strategy.popItem(actual));
+            assertEquals(0, actual.getPairId());
+            assertEquals(1.6, actual.getRate());
+            assertTrue(strategy.isEmpty());
+            assertFalse(window.hold(0, 1.7, 1));
+        }
+    }
+
+    @Test
+    public void heldPairShouldBeReleasedByTimer() throws InterruptedException {
+        // Arrange
+        var actual = new MutableCurrencyPairPrice();
+
+        try (var timerWheel = new TimerWheel(TimeUnit.MILLISECONDS.toNanos(1))) {
+            var window = new CoalescingWindow(TimeUnit.MILLISECONDS.toNanos(20), timerWheel);
+            var queue = new CurrencyPairPriceQueue(new LatestWinsThrottling(), new CurrencyPairRegistry(), window);
+            window.setReleaseTask(queue::releaseHeld);
+
+            // Act
+            queue.offer(0, 1.0);
+            queue.poll(actual);
+            queue.offer(0, 1.1);
+            queue.offer(0, 1.2);
+
+            var heldEmpty = queue.isEmpty();
+            long deadline = System.currentTimeMillis() + 5_000;
+
+            while (queue.isEmpty() && System.currentTimeMillis() < deadline) {
+                Thread.sleep(1);
+            }
+
+            // Assert
+            assertTrue(heldEmpty);
+            assertTrue(queue.poll(actual));
+            assertEquals(1.2, actual.getRate());
+            assertEquals(3, queue.getReceivedTicks());
+            assertEquals(2, queue.getDeliveredPrices());
+        }
+    }
+}
@@ -2,6 +2,12 @@ package com.price.processor.throttler;
 
 import org.junit.jupiter.api.Test;
 
+import java.lang.management.ManagementFactory;
+import java.util.HashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 public class CurrencyPairPriceQueueTest {
@@ -14,13 +20,7 @@ public class CurrencyPairPriceQueueTest {
 
         // Act
         var actual = queue.offer(pricePair);
-        CurrencyPairPrice actualMessage = null;
-
-        try {
-            actualMessage = queue.poll();
-        } catch (InterruptedException e) {
-            e.printStackTrace();
-        }
+        var actualMessage = queue.poll();
 
         // Assert
         assertTrue(actual);
@@ -49,13 +49,8 @@ public class CurrencyPairPriceQueueTest {
         queue.offer(new CurrencyPairPrice(frequentCcyPair, 0.17));
         queue.offer(new CurrencyPairPrice(frequentCcyPair, 0.18));
 
-        CurrencyPairPrice actual = null;
         // Act
-        try {
-            actual = queue.poll();
-        } catch (InterruptedException e) {
-            e.printStackTrace();
-        }
+        var actual = queue.poll();
 
         // Assert
         assertNotNull(actual);
@@ -81,16 +76,242 @@ public class CurrencyPairPriceQueueTest {
         queue.offer(new CurrencyPairPrice(ccyPair, 0.17));
         queue.offer(new CurrencyPairPrice(ccyPair, 0.18));
 
-        CurrencyPairPrice actual = null;
         // Act
-        try {
-            actual = queue.poll();
-        } catch (InterruptedException e) {
-            e.printStackTrace();
-        }
+        var actual = queue.poll();
 
         // Assert
         assertNotNull(actual);
         assertEquals(expected, actual.getRate());
     }
+
+    @Test
+    public void pendingPricesShouldBeBoundedByPairsCount() {
+        // Arrange
+        var queue = new CurrencyPairPriceQueue(new DeliveryFreqRankThrottling());
+        final String[] ccyPairs = {"EURUSD", "USDRUB", "EURRUB"};
+
+        for (int i = 1; i <= 300_000; i++) {
+            queue.offer(new CurrencyPairPrice(ccyPairs[i % ccyPairs.length], i));
+        }
+
+        // Act
+        var delivered = new HashMap<String, Double>();
+
+        CurrencyPairPrice actual;
+
+        while ((actual = queue.poll()) != null) {
+            assertNull(delivered.put(actual.getCcyPair(), actual.getRate()), "Pair delivered twice");
+        }
+
+        // Assert
+        assertEquals(3, delivered.size());
+        assertEquals(300_000d, delivered.get("EURUSD"));
+        assertEquals(299_998d, delivered.get("USDRUB"));
+        assertEquals(299_999d, delivered.get("EURRUB"));
+    }
+
+    @Test
+    public void steadyStateOfferAndPollShouldNotAllocate() {
+        // Arrange
+        var threadBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        var queue = new CurrencyPairPriceQueue(new DeliveryFreqRankThrottling());
+        var pairPrice = new MutableCurrencyPairPrice();
+        final String[] ccyPairs = {"EURUSD", "USDRUB", "EURRUB"};
+        final int iterations = 300_000;
+
+        for (int i = 0; i < iterations; i++) {
+            queue.offer(ccyPairs[i % ccyPairs.length], i);
+            queue.poll(pairPrice);
+        }
+
+        // Act
+        long allocatedBefore = threadBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+
+        for (int i = 0; i < iterations; i++) {
+            queue.offer(ccyPairs[i % ccyPairs.length], i);
+            queue.poll(pairPrice);
+        }
+
+        long allocated = threadBean.getThreadAllocatedBytes(Thread.currentThread().getId()) - allocatedBefore;
+
+        // Assert
+        assertTrue(allocated < 16 * 1024, "Allocated " + allocated + " bytes for " + iterations + " prices");
+    }
+
+    @Test
+    public void allPendingPricesShouldBePolledToBatchAtOnce() {
+        // Arrange
+        var queue = new CurrencyPairPriceQueue(new DeliveryFreqRankThrottling());
+        var batch = new PriceBatch();
+
+        for (int i = 0; i < 100; i++) {
+            queue.offer("PAIR" + (i % 20), i);
+        }
+
+        // Act
+        var actual = queue.poll(batch);
+
+        // Assert
+        assertTrue(actual);
+        assertEquals(20, batch.size());
+        assertTrue(queue.isEmpty());
+
+        for (int i = 0; i < batch.size(); i++) {
+            var pairIndex = Integer.parseInt(batch.getCcyPair(i).substring(4));
+
+            assertEquals(80 + pairIndex, batch.getRate(i));
+        }
+
+        assertFalse(queue.poll(batch));
+        assertEquals(0, batch.size());
+    }
+
+    @Test
+    public void seededQueueShouldSkipTicksOfSeededVersions() {
+        // Arrange
+        var latestPrices = new ShardedPriceBoard(2, 2);
+        var queue = new CurrencyPairPriceQueue(new DeliveryFreqRankThrottling());
+        var pairPrice = new MutableCurrencyPairPrice();
+
+        long inFlightVersion = latestPrices.publish(0, 0.10);
+        latestPrices.publish(1, 0.20);
+
+        // Act
+        queue.seed(latestPrices);
+        queue.offerVersion(0, 0.10, inFlightVersion);
+        queue.offerVersion(0, 0.11, latestPrices.publish(0, 0.11));
+
+        var delivered = new HashMap<Integer, Double>();
+
+        while (queue.poll(pairPrice)) {
+            assertNull(delivered.put(pairPrice.getPairId(), pairPrice.getRate()), "Pair delivered twice");
+        }
+
+        // Assert
+        assertEquals(2, delivered.size());
+        assertEquals(0.11, delivered.get(0));
+        assertEquals(0.20, delivered.get(1));
+        assertEquals(3, queue.getReceivedTicks());
+    }
+
+    @Test
+    public void queuesSeededWhileTicksArePublishedShouldGetEveryRateOnce() throws InterruptedException {
+        // Arrange
+        var latestPrices = new ShardedPriceBoard(2, 1);
+        var reachableQueue = new AtomicReference<CurrencyPairPriceQueue>();
+        var stopped = new AtomicBoolean();
+        var pairPrice = new MutableCurrencyPairPrice();
+
+        // the rate of every tick is its version
+        var producer = new Thread(() -> {
+            for (long version = 1; !stopped.get(); version++) {
+                latestPrices.publish(0, version);
+
+                var queue = reachableQueue.get();
+
+                if (queue != null) {
+                    queue.offerVersion(0, version, version);
+                }
+            }
+        });
+
+        producer.start();
+
+        // Act
+        int deliveredTwice = 0;
+
+        for (int i = 0; i < 2_000; i++) {
+            var queue = new CurrencyPairPriceQueue(new DeliveryFreqRankThrottling());
+
+            reachableQueue.set(queue);
+            queue.seed(latestPrices);
+
+            double seededRate = queue.poll(pairPrice) ? pairPrice.getRate() : 0;
+
+            while (!queue.poll(pairPrice)) {
+                Thread.yield();
+            }
+
+            if (pairPrice.getRate() <= seededRate) {
+                deliveredTwice++;
+            }
+        }
+
+        stopped.set(true);
+        producer.join();
+
+        // Assert
+        assertEquals(0, deliveredTwice);
+    }
+
+    @Test
+    public void priceOlderThanStalenessBudgetShouldBeSkipped() {
+        // Arrange
+        var tickClock = new PairTickClock();
+        var pairRegistry = new CurrencyPairRegistry();
+        var queue = new CurrencyPairPriceQueue(new DeliveryFreqRankThrottling(), pairRegistry, null,
+                tickClock, TimeUnit.MILLISECONDS.toNanos(100));
+        var batch = new PriceBatch();
+        long nowNanos = System.nanoTime();
+
+        tickClock.stamp(pairRegistry.getPairId("EURUSD"), nowNanos - TimeUnit.SECONDS.toNanos(1));
+        queue.offer("EURUSD", 6.28);
+        tickClock.stamp(pairRegistry.getPairId("EURRUB"), nowNanos);
+        queue.offer("EURRUB", 81.24);
+
+        // Act
+        var actual = queue.poll(batch);
+
+        // Assert
+        assertTrue(actual);
+        assertEquals(1, batch.size());
+        assertEquals("EURRUB", batch.getCcyPair(0));
+        assertTrue(batch.getAgeNanos(0) < TimeUnit.MILLISECONDS.toNanos(100));
+        assertEquals(1, queue.getSkippedPrices());
+        assertEquals(1, queue.getDeliveredPrices());
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    public void polledPriceShouldCarryItsAge() {
+        // Arrange
+        var tickClock = new PairTickClock();
+        var pairRegistry = new CurrencyPairRegistry();
+        var queue = new CurrencyPairPriceQueue(new DeliveryFreqRankThrottling(), pairRegistry, null, tickClock, 0);
+
+        tickClock.stamp(pairRegistry.getPairId("EURUSD"), System.nanoTime() - TimeUnit.SECONDS.toNanos(1));
+        queue.offer("EURUSD", 6.28);
+
+        // Act
+        var actual = queue.poll();
+
+        // Assert
+        assertEquals(new CurrencyPairPrice("EURUSD", 6.28), actual);
+        assertTrue(actual.getAgeNanos() >= TimeUnit.SECONDS.toNanos(1));
+    }
+
+    @Test
+    public void pendingCountShouldFollowOffersAndPolls() {
+        // Arrange
+        var queue = new CurrencyPairPriceQueue(new RoundRobinThrottling());
+        var target = new MutableCurrencyPairPrice();
+
+        // Act
+        var isEmptyBefore = queue.isEmpty();
+        queue.offer("EURUSD", 6.28);
+        queue.offer("EURUSD", 6.29);
+        queue.offer("EURRUB", 81.24);
+        var sizeAfterOffers = queue.size();
+        queue.poll(target);
+        var sizeAfterPoll = queue.size();
+        queue.poll(target);
+        var isPolledFromEmpty = queue.poll(target);
+
+        // Assert
+        assertTrue(isEmptyBefore);
+        assertEquals(2, sizeAfterOffers);
+        assertEquals(1, sizeAfterPoll);
+        assertTrue(queue.isEmpty());
+        assertFalse(isPolledFromEmpty);
+    }
 }
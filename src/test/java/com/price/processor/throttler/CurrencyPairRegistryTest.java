@@ -0,0 +1,68 @@
+package com.price.processor.throttler;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CurrencyPairRegistryTest {
+
+    @Test
+    public void samePairShouldGetSameDenseIdentifier() {
+        // Arrange
+        var registry = new CurrencyPairRegistry();
+
+        // Act
+        int eurUsd = registry.getPairId("EURUSD");
+        int eurRub = registry.getPairId("EURRUB");
+        int eurUsdAgain = registry.getPairId(new String("EURUSD"));
+
+        // Assert
+        assertEquals(0, eurUsd);
+        assertEquals(1, eurRub);
+        assertEquals(eurUsd, eurUsdAgain);
+        assertEquals(2, registry.size());
+        assertEquals("EURRUB", registry.getCcyPair(eurRub));
+    }
+
+    @Test
+    public void concurrentlyRegisteredPairsShouldGetUniqueIdentifiers() throws InterruptedException {
+        // Arrange
+        var registry = new CurrencyPairRegistry();
+        var pool = Executors.newFixedThreadPool(4);
+        var pairIds = new ConcurrentHashMap<String, Integer>();
+        var conflicts = new AtomicInteger();
+        final int pairsCount = 10_000;
+
+        // Act
+        for (int t = 0; t < 4; t++) {
+            pool.execute(() -> {
+                for (int i = 0; i < pairsCount; i++) {
+                    int pairId = registry.getPairId("PAIR" + i);
+                    var previousPairId = pairIds.putIfAbsent("PAIR" + i, pairId);
+
+                    if (previousPairId != null && previousPairId != pairId) {
+                        conflicts.incrementAndGet();
+                    }
+                }
+            });
+        }
+
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+
+        // Assert
+        assertEquals(0, conflicts.get());
+        assertEquals(pairsCount, registry.size());
+        assertEquals(pairsCount, new HashSet<>(pairIds.values()).size());
+
+        for (var pairId : pairIds.entrySet()) {
+            assertEquals(pairId.getKey(), registry.getCcyPair(pairId.getValue()));
+        }
+    }
+}
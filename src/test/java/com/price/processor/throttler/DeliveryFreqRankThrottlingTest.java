@@ -0,0 +1,153 @@
+package com.price.processor.throttler;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DeliveryFreqRankThrottlingTest {
+
+    @Test
+    public void pairPricesShouldBePoppedFromRarestToMostFrequent() {
+        // Arrange
+        var strategy = new DeliveryFreqRankThrottling();
+        final int pairsCount = 1_000;
+
+        var actual = new MutableCurrencyPairPrice();
+
+        for (int i = pairsCount - 1; i >= 0; i--) {
+            for (int j = 0; j <= i; j++) {
+                strategy.pushItem(i, j);
+            }
+        }
+
+        // Act & Assert
+        for (int i = 0; i < pairsCount; i++) {
+            assertTrue(strategy.popItem(actual));
+            assertEquals(i, actual.getPairId());
+            assertEquals(i, actual.getRate());
+        }
+
+        assertTrue(strategy.isEmpty());
+        assertFalse(strategy.popItem(actual));
+    }
+
+    @Test
+    public void deliveredPairShouldWaitForOthersToBeDelivered() {
+        // Arrange
+        var strategy = new DeliveryFreqRankThrottling();
+
+        var actual = new MutableCurrencyPairPrice();
+
+        strategy.pushItem(0, 0.10);
+        strategy.pushItem(1, 0.20);
+        strategy.pushItem(2, 0.30);
+
+        // Act
+        var delivered = new HashSet<Integer>();
+        strategy.popItem(actual);
+        int first = actual.getPairId();
+        delivered.add(first);
+
+        strategy.pushItem(first, 0.40);
+
+        strategy.popItem(actual);
+        delivered.add(actual.getPairId());
+        strategy.popItem(actual);
+        delivered.add(actual.getPairId());
+
+        // Assert
+        assertEquals(3, delivered.size());
+        assertTrue(strategy.popItem(actual));
+        assertEquals(first, actual.getPairId());
+        assertEquals(0.40, actual.getRate());
+        assertTrue(strategy.isEmpty());
+    }
+
+    @Test
+    public void rankShouldFollowCurrentTickRatesOfPairs() {
+        // Arrange
+        var strategy = new DeliveryFreqRankThrottling(200);
+        var actual = new MutableCurrencyPairPrice();
+        final int hotThenRarePair = 0;
+        final int rareThenHotPair = 1;
+
+        // the first pair ticks more over the session, but it is the rarer one recently
+        for (int i = 0; i < 1_000; i++) {
+            strategy.pushItem(hotThenRarePair, i);
+
+            if (i % 100 == 0) {
+                strategy.pushItem(rareThenHotPair, i);
+            }
+        }
+
+        while (strategy.popItem(actual));
+
+        for (int i = 0; i < 900; i++) {
+            strategy.pushItem(rareThenHotPair, i);
+
+            if (i % 90 == 0) {
+                strategy.pushItem(hotThenRarePair, i);
+            }
+        }
+
+        while (strategy.popItem(actual));
+
+        // Act
+        strategy.pushItem(rareThenHotPair, 0.20);
+        strategy.pushItem(hotThenRarePair, 0.10);
+        strategy.popItem(actual);
+
+        // Assert
+        assertEquals(hotThenRarePair, actual.getPairId());
+        assertEquals(0.10, actual.getRate());
+    }
+
+    @Test
+    public void ranksShouldStayDistinguishableOverLongSession() {
+        // Arrange
+        var strategy = new DeliveryFreqRankThrottling(16);
+        var actual = new MutableCurrencyPairPrice();
+
+        // the counts are rescaled many times on the way
+        for (int i = 0; i < 1_000_000; i++) {
+            strategy.pushItem(i & 1, i);
+            strategy.popItem(actual);
+        }
+
+        // Act
+        strategy.pushItem(0, 0.10);
+        strategy.pushItem(1, 0.20);
+        strategy.pushItem(1, 0.21);
+
+        // Assert
+        assertTrue(strategy.popItem(actual));
+        assertEquals(1, actual.getPairId());
+        assertEquals(0.21, actual.getRate());
+        assertTrue(strategy.popItem(actual));
+        assertEquals(0, actual.getPairId());
+        assertTrue(strategy.isEmpty());
+    }
+
+    @Test
+    public void restoredTickRatesShouldRankRarerPairFirst() {
+        // Arrange
+        var strategy = new DeliveryFreqRankThrottling();
+        var actual = new MutableCurrencyPairPrice();
+
+        strategy.restoreTickRates(new double[] {1_000_000, 10});
+
+        // Act
+        strategy.pushItem(1, 0.20);
+        strategy.pushItem(0, 0.10);
+        strategy.pushItem(1, 0.21);
+
+        // Assert
+        assertTrue(strategy.popItem(actual));
+        assertEquals(1, actual.getPairId());
+        assertEquals(0.21, actual.getRate());
+        assertTrue(strategy.popItem(actual));
+        assertEquals(0, actual.getPairId());
+    }
+}
@@ -0,0 +1,79 @@
+package com.price.processor.throttler;
+
+import com.price.processor.PriceProcessor;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+
+/**
+ *  PriceProcessor implementation for testing purpose which fails to process the first price
+ */
+final class FailingPriceProcessor implements PriceProcessor {
+
+    private final AtomicBoolean failed = new AtomicBoolean();
+    private final ConcurrentHashMap<String, Double> processedPrices = new ConcurrentHashMap<>();
+
+    @Override
+    public void onPrice(String ccyPair, double rate) {
+        if (failed.compareAndSet(false, true)) {
+            throw new IllegalStateException("The price " + rate + " of " + ccyPair + " cannot be processed");
+        }
+
+        processedPrices.put(ccyPair, rate);
+    }
+
+    @Override
+    public void subscribe(PriceProcessor priceProcessor) {
+        //Left it empty on purpose
+    }
+
+    @Override
+    public void unsubscribe(PriceProcessor priceProcessor) {
+        //Left it empty on purpose
+    }
+
+    public boolean hasFailed() {
+        return failed.get();
+    }
+
+    public Map<String, Double> getProcessedPrices() {
+        return processedPrices;
+    }
+
+    /**
+     * Waits till the price of pair is processed
+     * @param ccyPair the currency pair
+     * @param timeoutInMilliseconds the time to give up waiting
+     */
+    public void awaitProcessedPrice(String ccyPair, long timeoutInMilliseconds) {
+        long deadline = System.currentTimeMillis() + timeoutInMilliseconds;
+
+        while (!processedPrices.containsKey(ccyPair) && System.currentTimeMillis() < deadline) {
+            try {
+                Thread.sleep(1);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Waits till the first price fails
+     * @param timeoutInMilliseconds the time to give up waiting
+     */
+    public void awaitFailure(long timeoutInMilliseconds) {
+        long deadline = System.currentTimeMillis() + timeoutInMilliseconds;
+
+        while (!failed.get() && System.currentTimeMillis() < deadline) {
+            try {
+                Thread.sleep(1);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+}
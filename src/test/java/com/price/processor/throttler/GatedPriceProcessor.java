@@ -0,0 +1,55 @@
+package com.price.processor.throttler;
+
+import com.price.processor.PriceProcessor;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ *  PriceProcessor implementation for testing purpose which holds the first call till the gate is opened
+ */
+final class GatedPriceProcessor implements PriceProcessor {
+
+    private final CountDownLatch callStarted = new CountDownLatch(1);
+    private final CountDownLatch gate = new CountDownLatch(1);
+    private volatile double lastRate;
+
+    @Override
+    public void onPrice(String ccyPair, double rate) {
+        callStarted.countDown();
+
+        try {
+            gate.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        lastRate = rate;
+    }
+
+    @Override
+    public void subscribe(PriceProcessor priceProcessor) {
+        //Left it empty on purpose
+    }
+
+    @Override
+    public void unsubscribe(PriceProcessor priceProcessor) {
+        //Left it empty on purpose
+    }
+
+    /**
+     * Lets the call held and all the next ones complete
+     */
+    public void open() {
+        gate.countDown();
+    }
+
+    public double getLastRate() {
+        return lastRate;
+    }
+
+    public boolean awaitCallStarted(long timeoutInMilliseconds) throws InterruptedException {
+        return callStarted.await(timeoutInMilliseconds, TimeUnit.MILLISECONDS);
+    }
+}
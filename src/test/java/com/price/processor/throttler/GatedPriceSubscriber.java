@@ -0,0 +1,129 @@
+package com.price.processor.throttler;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ *  Flow.Subscriber implementation for testing purpose which holds every price till the gate is opened
+ *  The held call is not interrupted, so it outlives the close of throttler
+ */
+final class GatedPriceSubscriber implements Flow.Subscriber<CurrencyPairPrice> {
+
+    private final boolean cancelOnNext;
+    private final CountDownLatch nextStarted = new CountDownLatch(1);
+    private final CountDownLatch gate = new CountDownLatch(1);
+    private final CountDownLatch completed = new CountDownLatch(1);
+    private final CountDownLatch failed = new CountDownLatch(1);
+    private final AtomicInteger terminalSignalsCount = new AtomicInteger();
+
+    private volatile Flow.Subscription subscription;
+    private volatile boolean inNext;
+    private volatile boolean completedInNext;
+    private volatile boolean interruptedByCancel;
+    private volatile Throwable error;
+    private volatile boolean failedInNext;
+
+    /**
+     * @param cancelOnNext defines whether the subscriber cancels the subscription from <c>onNext</c>
+     */
+    public GatedPriceSubscriber(boolean cancelOnNext) {
+        this.cancelOnNext = cancelOnNext;
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        this.subscription = subscription;
+    }
+
+    @Override
+    public void onNext(CurrencyPairPrice item) {
+        inNext = true;
+        nextStarted.countDown();
+
+        if (cancelOnNext) {
+            subscription.cancel();
+            interruptedByCancel = Thread.currentThread().isInterrupted();
+        }
+
+        boolean interrupted = false;
+
+        while (true) {
+            try {
+                gate.await();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+
+        inNext = false;
+
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        error = throwable;
+        failedInNext = inNext;
+        terminalSignalsCount.incrementAndGet();
+        failed.countDown();
+    }
+
+    @Override
+    public void onComplete() {
+        completedInNext = inNext;
+        terminalSignalsCount.incrementAndGet();
+        completed.countDown();
+    }
+
+    public void request(long n) {
+        subscription.request(n);
+    }
+
+    /**
+     * Lets the call held and all the next ones complete
+     */
+    public void open() {
+        gate.countDown();
+    }
+
+    public boolean isCompleted() {
+        return completed.getCount() == 0;
+    }
+
+    public boolean isCompletedInNext() {
+        return completedInNext;
+    }
+
+    public Throwable getError() {
+        return error;
+    }
+
+    public boolean isFailedInNext() {
+        return failedInNext;
+    }
+
+    public int getTerminalSignalsCount() {
+        return terminalSignalsCount.get();
+    }
+
+    public boolean isInterruptedByCancel() {
+        return interruptedByCancel;
+    }
+
+    public boolean awaitNextStarted(long timeoutInMilliseconds) throws InterruptedException {
+        return nextStarted.await(timeoutInMilliseconds, TimeUnit.MILLISECONDS);
+    }
+
+    public boolean awaitFailed(long timeoutInMilliseconds) throws InterruptedException {
+        return failed.await(timeoutInMilliseconds, TimeUnit.MILLISECONDS);
+    }
+
+    public boolean awaitCompleted(long timeoutInMilliseconds) throws InterruptedException {
+        return completed.await(timeoutInMilliseconds, TimeUnit.MILLISECONDS);
+    }
+}
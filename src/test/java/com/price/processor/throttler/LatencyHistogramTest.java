@@ -0,0 +1,42 @@
+package com.price.processor.throttler;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void bucketShouldCoverValueWithBoundedPrecision() {
+        for (long value = 0; value < 1_000_000_000L; value = value * 3 / 2 + 1) {
+            // Act
+            var upperBound = LatencyHistogram.getBucketUpperBound(LatencyHistogram.getBucketIndex(value));
+
+            // Assert
+            assertTrue(upperBound >= value);
+            assertTrue(upperBound - value <= value / 8);
+        }
+    }
+
+    @Test
+    public void percentilesShouldBeTakenFromRecordedValues() {
+        // Arrange
+        var histogram = new LatencyHistogram();
+
+        for (int i = 1; i <= 100; i++) {
+            histogram.record(i * 1_000L);
+        }
+
+        histogram.record(Long.MAX_VALUE);
+
+        // Act
+        var snapshot = histogram.snapshot();
+
+        // Assert
+        assertEquals(101, snapshot.getTotalCount());
+        assertEquals(50_000, snapshot.getValueAtPercentile(49.5), 50_000 / 8);
+        assertEquals(100_000, snapshot.getValueAtPercentile(99), 100_000 / 8);
+        assertTrue(snapshot.getMaxValue() > 1_000_000_000_000L);
+        assertEquals(0, HistogramSnapshot.empty().getValueAtPercentile(99));
+    }
+}
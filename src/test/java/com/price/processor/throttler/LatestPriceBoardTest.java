@@ -0,0 +1,191 @@
+package com.price.processor.throttler;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LatestPriceBoardTest {
+
+    @Test
+    public void cursorShouldTakePricesPublishedAfterItIsCreated() {
+        // Arrange
+        var board = new LatestPriceBoard(16);
+        var queue = new CurrencyPairPriceQueue(new DeliveryFreqRankThrottling());
+
+        board.publish(0, 0.10);
+        var cursor = new PriceBoardCursor(board);
+
+        board.publish(1, 0.20);
+        board.publish(1, 0.21);
+
+        // Act
+        assertTrue(cursor.hasPending());
+        cursor.pullInto(queue);
+
+        var delivered = drain(queue);
+
+        // Assert
+        assertFalse(cursor.hasPending());
+        assertEquals(1, delivered.size());
+        assertEquals(0.21, delivered.get(1));
+    }
+
+    @Test
+    public void lappedCursorShouldTakeLatestPricePerPair() {
+        // Arrange
+        var board = new LatestPriceBoard(4);
+        var queue = new CurrencyPairPriceQueue(new DeliveryFreqRankThrottling());
+        var cursor = new PriceBoardCursor(board);
+
+        for (int i = 1; i <= 100; i++) {
+            board.publish(i % 3, i);
+        }
+
+        // Act
+        cursor.pullInto(queue);
+        var delivered = drain(queue);
+
+        // Assert
+        assertEquals(3, delivered.size());
+        assertEquals(99d, delivered.get(0));
+        assertEquals(100d, delivered.get(1));
+        assertEquals(98d, delivered.get(2));
+    }
+
+    @Test
+    public void deliveredPriceShouldNotBeTakenAgain() {
+        // Arrange
+        var board = new LatestPriceBoard(4);
+        var queue = new CurrencyPairPriceQueue(new DeliveryFreqRankThrottling());
+        var cursor = new PriceBoardCursor(board);
+
+        board.publish(0, 0.10);
+        cursor.pullInto(queue);
+        drain(queue);
+
+        // Act
+        for (int i = 1; i <= 10; i++) {
+            board.publish(1, i);
+        }
+
+        cursor.pullInto(queue);
+        var delivered = drain(queue);
+
+        // Assert
+        assertEquals(1, delivered.size());
+        assertEquals(10d, delivered.get(1));
+    }
+
+    @Test
+    public void shardedCursorShouldTakeLatestPricePerPairOfAllShards() {
+        // Arrange
+        var board = new ShardedPriceBoard(4, 4);
+        var queue = new CurrencyPairPriceQueue(new DeliveryFreqRankThrottling());
+        var cursor = new PriceBoardCursor(board);
+
+        for (int i = 1; i <= 100; i++) {
+            board.publish(i % 10, i);
+        }
+
+        // Act
+        cursor.pullInto(queue);
+        var delivered = drain(queue);
+
+        // Assert
+        assertFalse(cursor.hasPending());
+        assertEquals(10, delivered.size());
+
+        for (int pairId = 0; pairId < 10; pairId++) {
+            assertEquals(pairId == 0 ? 100d : 90d + pairId, delivered.get(pairId));
+        }
+    }
+
+    @Test
+    public void concurrentProducersShouldPublishEveryTick() throws InterruptedException {
+        // Arrange
+        final int producersCount = 4;
+        final int ticksCount = 10_000;
+        var board = new ShardedPriceBoard(16, producersCount);
+        var queue = new CurrencyPairPriceQueue(new DeliveryFreqRankThrottling());
+        var cursor = new PriceBoardCursor(board);
+        var start = new CountDownLatch(1);
+        var producers = new Thread[producersCount];
+
+        for (int i = 0; i < producersCount; i++) {
+            final int firstPairId = i;
+            producers[i] = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+
+                // the producers share the pairs, so they share the shards too
+                for (int tick = 1; tick <= ticksCount; tick++) {
+                    board.publish((firstPairId + tick) % 8, tick);
+                }
+            });
+            producers[i].start();
+        }
+
+        // Act
+        start.countDown();
+
+        for (var producer : producers) {
+            producer.join();
+        }
+
+        cursor.pullInto(queue);
+        var delivered = drain(queue);
+
+        // Assert
+        assertEquals(producersCount * ticksCount, board.getPublishedSequence());
+        assertEquals(producersCount * ticksCount, queue.getReceivedTicks());
+        assertEquals(8, delivered.size());
+    }
+
+    private static HashMap<Integer, Double> drain(CurrencyPairPriceQueue queue) {
+        var delivered = new HashMap<Integer, Double>();
+        var pairPrice = new MutableCurrencyPairPrice();
+
+        while (queue.poll(pairPrice)) {
+            assertNull(delivered.put(pairPrice.getPairId(), pairPrice.getRate()), "Pair delivered twice");
+        }
+
+        return delivered;
+    }
+
+    @Test
+    public void cursorFromLatestPricesShouldTakeEveryPairOnce() {
+        // Arrange
+        var board = new ShardedPriceBoard(4, 2);
+        var queue = new CurrencyPairPriceQueue(new DeliveryFreqRankThrottling());
+
+        for (int i = 1; i <= 10; i++) {
+            board.publish(i % 3, i);
+        }
+
+        var cursor = new PriceBoardCursor(board, true);
+
+        // Act
+        assertTrue(cursor.hasPending());
+        cursor.pullInto(queue);
+        var snapshot = drain(queue);
+
+        board.publish(1, 11);
+        cursor.pullInto(queue);
+        var delivered = drain(queue);
+
+        // Assert
+        assertFalse(cursor.hasPending());
+        assertEquals(3, snapshot.size());
+        assertEquals(9d, snapshot.get(0));
+        assertEquals(10d, snapshot.get(1));
+        assertEquals(8d, snapshot.get(2));
+        assertEquals(1, delivered.size());
+        assertEquals(11d, delivered.get(1));
+    }
+}
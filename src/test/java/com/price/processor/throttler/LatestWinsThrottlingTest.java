@@ -0,0 +1,61 @@
+package com.price.processor.throttler;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LatestWinsThrottlingTest {
+
+    @Test
+    public void pendingPairsShouldBePoppedInOrderTheyHaveCome() {
+        // Arrange
+        var strategy = new LatestWinsThrottling();
+        var actual = new MutableCurrencyPairPrice();
+        final int pairsCount = 1_000;
+
+        for (int i = pairsCount - 1; i >= 0; i--) {
+            strategy.pushItem(i, i);
+        }
+
+        for (int i = 0; i < pairsCount; i++) {
+            strategy.pushItem(i, -i);
+        }
+
+        // Act & Assert
+        assertEquals(pairsCount, strategy.size());
+
+        for (int i = pairsCount - 1; i >= 0; i--) {
+            assertTrue(strategy.popItem(actual));
+            assertEquals(i, actual.getPairId());
+            assertEquals(-i, actual.getRate());
+        }
+
+        assertTrue(strategy.isEmpty());
+        assertFalse(strategy.popItem(actual));
+    }
+
+    @Test
+    public void deliveredPairShouldBeQueuedAfterOthers() {
+        // Arrange
+        var strategy = new LatestWinsThrottling();
+        var actual = new MutableCurrencyPairPrice();
+
+        strategy.pushItem(0, 0.10);
+        strategy.pushItem(1, 0.20);
+
+        // Act
+        strategy.popItem(actual);
+        strategy.pushItem(0, 0.11);
+        strategy.pushItem(2, 0.30);
+
+        // Assert
+        assertTrue(strategy.popItem(actual));
+        assertEquals(1, actual.getPairId());
+        assertTrue(strategy.popItem(actual));
+        assertEquals(0, actual.getPairId());
+        assertEquals(0.11, actual.getRate());
+        assertTrue(strategy.popItem(actual));
+        assertEquals(2, actual.getPairId());
+        assertTrue(strategy.isEmpty());
+    }
+}
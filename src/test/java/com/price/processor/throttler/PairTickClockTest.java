@@ -0,0 +1,53 @@
+package com.price.processor.throttler;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PairTickClockTest {
+
+    @Test
+    public void ageShouldBeTakenFromLatestTick() {
+        // Arrange
+        var clock = new PairTickClock();
+
+        clock.stamp(0, 100);
+        clock.stamp(0, 200);
+
+        // Act
+        long age = clock.getAgeNanos(0, 250);
+
+        // Assert
+        assertEquals(50, age);
+        assertEquals(0, clock.getAgeNanos(1, 250));
+        assertEquals(PairTickClock.NO_TICK, clock.getTickNanos(1_000));
+    }
+
+    @Test
+    public void stampsShouldNotBeLostWhileTableGrows() throws InterruptedException {
+        for (int round = 0; round < 100; round++) {
+            // Arrange
+            var clock = new PairTickClock();
+            final long lastNanos = 10_000;
+
+            var stampingThread = new Thread(() -> {
+                for (long nanos = 1; nanos <= lastNanos; nanos++) {
+                    clock.stamp(0, nanos);
+                }
+            });
+
+            // Act
+            stampingThread.start();
+
+            for (int pairId = 64; pairId < 1 << 16; pairId *= 2) {
+                clock.stamp(pairId, 1);
+                Thread.yield();
+            }
+
+            stampingThread.join();
+
+            // Assert
+            assertEquals(lastNanos, clock.getTickNanos(0));
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.price.processor.throttler;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PriceChannelReaderTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void pricesWrittenToFileShouldBeReadBack() throws IOException {
+        // Arrange
+        var path = tempDir.resolve("prices.bin");
+        var pairRegistry = new CurrencyPairRegistry();
+        var batch = new PriceBatch();
+        var listener = SimplePriceProcessor.constructWithoutDelayInProcessing();
+
+        try (var channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            var subscriber = new ChannelPriceSubscriber(channel, null, pairRegistry);
+
+            addToBatch(batch, pairRegistry, "EURUSD", 6.28);
+            addToBatch(batch, pairRegistry, "EURRUB", 81.24);
+            subscriber.onPrices(batch);
+            subscriber.onPrice("EURUSD", 6.29);
+        }
+
+        // Act
+        try (var channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            var reader = new PriceChannelReader(channel);
+
+            while (reader.read(listener)) {
+                // reads till the end of file
+            }
+        }
+
+        // Assert
+        assertEquals(Map.of("EURUSD", 6.29, "EURRUB", 81.24), listener.getProcessedPrices());
+    }
+
+    @Test
+    public void frameOfUnknownTypeShouldFailTheRead() throws IOException {
+        // Arrange
+        var path = tempDir.resolve("prices.bin");
+
+        try (var channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[] {42, 0, 0, 0, 0}));
+        }
+
+        // Act
+        try (var channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            var reader = new PriceChannelReader(channel);
+
+            // Assert
+            assertThrows(IllegalStateException.class,
+                    () -> reader.read(SimplePriceProcessor.constructWithoutDelayInProcessing()));
+        }
+    }
+
+    private static void addToBatch(PriceBatch batch, CurrencyPairRegistry pairRegistry, String ccyPair, double rate) {
+        batch.add(pairRegistry.getPairId(ccyPair), rate);
+        batch.setCcyPair(batch.size() - 1, ccyPair);
+    }
+}
@@ -0,0 +1,107 @@
+package com.price.processor.throttler;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PriceJournalFileTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void recordedPricesShouldBeReadAfterReopen() {
+        // Arrange
+        var path = tempDir.resolve("prices.journal");
+
+        try (var journal = PriceJournalFile.open(path, 16)) {
+            journal.record(0, "EURUSD", 6.28);
+            journal.record(1, "EURRUB", 81.24);
+            journal.record(0, "EURUSD", 6.29);
+            journal.record(2, "A_VERY_LONG_CURRENCY_PAIR", 1.0);
+        }
+
+        // Act
+        try (var journal = PriceJournalFile.open(path, 16)) {
+
+            // Assert
+            assertEquals("EURUSD", journal.getCcyPair(0));
+            assertEquals(6.29, journal.getRate(0));
+            assertEquals(2, journal.getTickRate(0));
+            assertEquals("EURRUB", journal.getCcyPair(1));
+            assertEquals(81.24, journal.getRate(1));
+            assertEquals(1, journal.getTickRate(1));
+            assertNull(journal.getCcyPair(2));
+            assertNull(journal.getCcyPair(3));
+        }
+    }
+
+    @Test
+    public void journalOfOtherCapacityShouldBeStartedOver() {
+        // Arrange
+        var path = tempDir.resolve("prices.journal");
+
+        try (var journal = PriceJournalFile.open(path, 16)) {
+            journal.record(0, "EURUSD", 6.28);
+        }
+
+        // Act
+        try (var appender = CapturingAppender.capture(PriceJournalFile.class);
+             var journal = PriceJournalFile.open(path, 32)) {
+
+            // Assert
+            assertEquals(32, journal.getPairsCapacity());
+            assertNull(journal.getCcyPair(0));
+            assertEquals(0, journal.getTickRate(0));
+            assertEquals(1, appender.getMessages().size());
+            assertTrue(appender.getMessages().get(0).contains("is started over"));
+        }
+    }
+
+    @Test
+    public void freshJournalShouldStartWithoutWarning() {
+        // Arrange
+        var path = tempDir.resolve("prices.journal");
+
+        // Act
+        try (var appender = CapturingAppender.capture(PriceJournalFile.class);
+             var journal = PriceJournalFile.open(path, 16)) {
+
+            // Assert
+            assertEquals(16, journal.getPairsCapacity());
+            assertNull(journal.getCcyPair(0));
+            assertTrue(appender.getMessages().isEmpty());
+        }
+    }
+
+    @Test
+    public void tickRatesShouldDecayByHalfLife() {
+        // Arrange
+        var path = tempDir.resolve("prices.journal");
+        final long halfLifeTicks = DeliveryFreqRankThrottling.DEFAULT_HALF_LIFE_TICKS;
+
+        try (var journal = PriceJournalFile.open(path, 16)) {
+            // the first pair has ticked a lot long ago, the second one ticks rarely but recently
+            for (long i = 0; i < 3 * halfLifeTicks; i++) {
+                journal.record(0, "EURUSD", 6.28);
+            }
+
+            for (long i = 0; i < 4 * halfLifeTicks; i++) {
+                journal.record(i % 8 == 0 ? 1 : 2, i % 8 == 0 ? "EURRUB" : "USDRUB", 81.24);
+            }
+        }
+
+        // Act
+        try (var journal = PriceJournalFile.open(path, 16)) {
+
+            // Assert
+            double decayedTicks = halfLifeTicks / Math.log(2) * (Math.pow(2, -4) - Math.pow(2, -7));
+            assertEquals(decayedTicks, journal.getTickRate(0), decayedTicks * 0.01);
+            assertTrue(journal.getTickRate(0) < journal.getTickRate(1));
+            assertEquals(7, journal.getTickRate(2) / journal.getTickRate(1), 0.01);
+        }
+    }
+}
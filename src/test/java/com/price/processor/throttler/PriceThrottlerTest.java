@@ -2,16 +2,28 @@ package com.price.processor.throttler;
 
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Path;
 import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 
 public class PriceThrottlerTest {
 
+    private static final long AWAIT_TIMEOUT_MILLIS = 5_000;
+
     @Test
     @DisplayName("When price come then distributed to the listener")
     public void eventShouldBeDistributedToListener() {
@@ -95,7 +107,7 @@ public class PriceThrottlerTest {
         throttler.onPrice("EURUSD", 7.28);
         throttler.onPrice("EURUSD", 8.28);
 
-        while (slowListener.getProcessedPrices().isEmpty());
+        slowListener.awaitProcessedPrices(prices, AWAIT_TIMEOUT_MILLIS);
 
         throttler.close();
 
@@ -133,13 +145,7 @@ public class PriceThrottlerTest {
 
         throttler.onPrice("EURRUB", 11.0);
 
-        while (listener.getProcessedPrices().size() < 2) {
-            try {
-                Thread.sleep(1);
-            } catch (InterruptedException e) {
-                e.printStackTrace();
-            }
-        }
+        listener.awaitProcessedPrices(prices, AWAIT_TIMEOUT_MILLIS);
 
         // Assert
         assertEquals(prices, listener.getProcessedPrices());
@@ -209,4 +215,929 @@ public class PriceThrottlerTest {
          assertEquals(prices, listener.getProcessedPrices());
         }
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("Slow subscriber should not occupy the shared worker of fast subscriber")
+    public void theSlowProcessorShouldBeMovedOffSharedWorker() {
+
+        // Arrange
+        var slowListener = new SimplePriceProcessor(1_000);
+        var fastListener = SimplePriceProcessor.constructWithoutDelayInProcessing();
+        var throttler = new PriceThrottler(1, 20);
+
+        throttler.subscribe(slowListener);
+        throttler.onPrice("EURUSD", 6.28);
+
+        try {
+            Thread.sleep(100);
+        } catch (InterruptedException e) {
+            e.printStackTrace();
+        }
+
+        throttler.subscribe(fastListener);
+
+        // Act
+        long startedMillis = System.currentTimeMillis();
+        throttler.onPrice("EURRUB", 81.24);
+
+        while (fastListener.getProcessedPrices().isEmpty()) {
+            Thread.onSpinWait();
+        }
+
+        long waitedMillis = System.currentTimeMillis() - startedMillis;
+        boolean isSlowListenerProcessing = slowListener.getProcessedPrices().isEmpty();
+        throttler.close();
+
+        // Assert
+        assertTrue(isSlowListenerProcessing, "Slow listener is still processing");
+        assertTrue(waitedMillis < 500, "Fast listener waited " + waitedMillis + " ms");
+    }
+
+    @Test
+    @DisplayName("Thousands of blocking subscribers are served on the thread per subscriber")
+    public void theBlockingProcessorsShouldBeServedOnThreadPerSubscriber() {
+
+        // Arrange
+        var prices = new HashMap<String, Double>();
+
+        prices.put("EURUSD", 8.28);
+        prices.put("EURRUB", 11.0);
+
+        final int SLOW_LISTENERS_COUNT = 1_000;
+
+        var fastListener = SimplePriceProcessor.constructWithoutDelayInProcessing();
+        var slowListeners = new SimplePriceProcessor[SLOW_LISTENERS_COUNT];
+        var throttler = new PriceThrottler(new ThrottlerSettings()
+                .setDeliveryMode(DeliveryMode.VIRTUAL_THREAD_PER_SUBSCRIBER));
+
+        for (int i = 0; i < SLOW_LISTENERS_COUNT; i++) {
+            slowListeners[i] = new SimplePriceProcessor(200);
+            throttler.subscribe(slowListeners[i]);
+        }
+
+        throttler.subscribe(fastListener);
+
+        // Act
+        throttler.onPrice("EURUSD", 7.28);
+        throttler.onPrice("EURRUB", 11.0);
+        throttler.onPrice("EURUSD", 8.28);
+
+        fastListener.awaitProcessedPrices(prices, AWAIT_TIMEOUT_MILLIS);
+
+        for (var slowListener : slowListeners) {
+            slowListener.awaitProcessedPrices(prices, AWAIT_TIMEOUT_MILLIS);
+        }
+
+        throttler.close();
+
+        // Assert
+        assertEquals(prices, fastListener.getProcessedPrices(), "Fast listener assertion");
+
+        for (var slowListener : slowListeners) {
+            assertEquals(prices, slowListener.getProcessedPrices(), "Slow listener assertion");
+        }
+    }
+
+    @Test
+    @DisplayName("Prices published by pair identifier are delivered by currency pair")
+    public void pricePublishedByPairIdShouldBeDelivered() {
+        // Arrange
+        var prices = new HashMap<String, Double>();
+
+        prices.put("EURUSD", 6.28);
+        prices.put("EURRUB", 81.24);
+
+        var listener = SimplePriceProcessor.constructWithoutDelayInProcessing();
+        var registry = new CurrencyPairRegistry();
+        var throttler = new PriceThrottler(new ThrottlerSettings().setPairRegistry(registry));
+
+        throttler.subscribe(listener);
+
+        // Act
+        throttler.onPrice(registry.getPairId("EURUSD"), 6.28);
+        throttler.onPrice("EURRUB", 81.24);
+
+        listener.awaitProcessedPrices(prices, AWAIT_TIMEOUT_MILLIS);
+        throttler.close();
+
+        // Assert
+        assertEquals(prices, listener.getProcessedPrices());
+        assertEquals(registry, throttler.getPairRegistry());
+    }
+
+    @Test
+    @DisplayName("Price published by the pair identifier unknown to the registry is rejected")
+    public void pricePublishedByUnknownPairIdShouldBeRejected() {
+        // Arrange
+        var listener = SimplePriceProcessor.constructWithoutDelayInProcessing();
+        var registry = new CurrencyPairRegistry();
+        var throttler = new PriceThrottler(new ThrottlerSettings().setPairRegistry(registry));
+
+        throttler.subscribe(listener);
+        int unknownPairId = registry.getPairId("EURUSD") + 1;
+
+        // Act
+        var actual = assertThrows(IllegalArgumentException.class, () -> throttler.onPrice(unknownPairId, 6.28));
+        assertThrows(IllegalArgumentException.class, () -> throttler.onPrice(-1, 6.28));
+
+        throttler.onPrice("EURUSD", 6.28);
+        listener.awaitProcessedPrices(Map.of("EURUSD", 6.28), AWAIT_TIMEOUT_MILLIS);
+        throttler.close();
+
+        // Assert
+        assertTrue(actual.getMessage().contains(String.valueOf(unknownPairId)));
+        assertEquals(Map.of("EURUSD", 6.28), listener.getProcessedPrices());
+    }
+
+    @Test
+    @DisplayName("Subscribers take the latest prices from the shared price board")
+    public void whenManySubscribersTakePricesFromSharedBoardAllLastPricesAreDelivered() {
+        // Arrange
+        var prices = new HashMap<String, Double>();
+
+        prices.put("EURUSD", 1000d);
+        prices.put("EURRUB", 1000d);
+        prices.put("USDRUB", 1000d);
+
+        final int LISTENERS_COUNT = 200;
+
+        var listeners = new SimplePriceProcessor[LISTENERS_COUNT];
+        var slowListener = new SimplePriceProcessor(5);
+        var throttler = new PriceThrottler(new ThrottlerSettings()
+                .setIngestMode(IngestMode.SHARED_PRICE_BOARD)
+                .setPriceBoardJournalCapacity(64));
+
+        for (int i = 0; i < LISTENERS_COUNT; i++) {
+            listeners[i] = SimplePriceProcessor.constructWithoutDelayInProcessing();
+            throttler.subscribe(listeners[i]);
+        }
+
+        throttler.subscribe(slowListener);
+
+        // Act
+        for (int i = 1; i <= 1_000; i++) {
+            throttler.onPrice("EURUSD", i);
+            throttler.onPrice("EURRUB", i);
+            throttler.onPrice("USDRUB", i);
+        }
+
+        slowListener.awaitProcessedPrices(prices, AWAIT_TIMEOUT_MILLIS);
+
+        for (var listener : listeners) {
+            listener.awaitProcessedPrices(prices, AWAIT_TIMEOUT_MILLIS);
+        }
+
+        throttler.close();
+
+        // Assert
+        assertEquals(prices, slowListener.getProcessedPrices(), "Slow listener assertion");
+
+        for (var listener : listeners) {
+            assertEquals(prices, listener.getProcessedPrices());
+        }
+    }
+
+    @Test
+    @DisplayName("Batch subscriber takes all the pending prices in one call")
+    public void thePendingPricesShouldBeDeliveredToBatchProcessorAtOnce() {
+        // Arrange
+        var prices = new HashMap<String, Double>();
+
+        prices.put("EURUSD", 6.29);
+        prices.put("EURRUB", 81.25);
+        prices.put("USDJPY", 104.51);
+
+        var listener = new SimpleBatchPriceProcessor(20);
+        var throttler = new PriceThrottler();
+
+        throttler.subscribe(listener);
+
+        // Act
+        throttler.onPrice("EURUSD", 6.28);
+
+        for (var price : prices.entrySet()) {
+            throttler.onPrice(price.getKey(), price.getValue() - 0.01);
+            throttler.onPrice(price.getKey(), price.getValue());
+        }
+
+        listener.awaitProcessedPrices(prices, AWAIT_TIMEOUT_MILLIS);
+        throttler.close();
+
+        // Assert
+        assertEquals(prices, listener.getProcessedPrices());
+        assertEquals(0, listener.getSinglePricesCount());
+        assertTrue(listener.getMaxBatchSize() > 1);
+        assertTrue(listener.getBatchesCount() <= prices.size());
+    }
+
+    @Test
+    @DisplayName("Unsubscribe interrupts the blocked call and nothing is delivered after")
+    public void theBlockedProcessorShouldBeInterruptedOnUnsubscribe() throws InterruptedException {
+        // Arrange
+        var listener = new BlockingPriceProcessor();
+        var throttler = new PriceThrottler(new ThrottlerSettings()
+                .setDeliveryMode(DeliveryMode.VIRTUAL_THREAD_PER_SUBSCRIBER));
+
+        throttler.subscribe(listener);
+        throttler.onPrice("EURUSD", 6.28);
+
+        // Act
+        var callStarted = listener.awaitCallStarted(AWAIT_TIMEOUT_MILLIS);
+        throttler.onPrice("EURRUB", 81.24);
+        throttler.unsubscribe(listener);
+        var callInterrupted = listener.awaitCallInterrupted(AWAIT_TIMEOUT_MILLIS);
+        throttler.onPrice("USDJPY", 104.5);
+        throttler.close();
+
+        // Assert
+        assertTrue(callStarted);
+        assertTrue(callInterrupted);
+        assertEquals(1, listener.getCallsCount());
+    }
+
+    @Test
+    @DisplayName("Close stops the drain blocked in the call")
+    public void theBlockedProcessorShouldBeStoppedOnClose() throws InterruptedException {
+        // Arrange
+        var listener = new BlockingPriceProcessor();
+        var throttler = new PriceThrottler();
+
+        throttler.subscribe(listener);
+        throttler.onPrice("EURUSD", 6.28);
+
+        // Act
+        var callStarted = listener.awaitCallStarted(AWAIT_TIMEOUT_MILLIS);
+        throttler.onPrice("EURRUB", 81.24);
+        throttler.close();
+        var callInterrupted = listener.awaitCallInterrupted(AWAIT_TIMEOUT_MILLIS);
+
+        // Assert
+        assertTrue(callStarted);
+        assertTrue(callInterrupted);
+        assertEquals(1, listener.getCallsCount());
+        assertTrue(throttler.getMetrics().getSubscribers().isEmpty());
+    }
+
+    @Test
+    @DisplayName("Subscribers choose their own throttling strategies")
+    public void subscribersWithDifferentStrategiesShouldGetLastPrices() {
+        // Arrange
+        var prices = new HashMap<String, Double>();
+
+        prices.put("EURUSD", 6.28);
+        prices.put("EURRUB", 81.24);
+        prices.put("USDJPY", 104.5);
+
+        var listeners = new SimplePriceProcessor[] {
+                new SimplePriceProcessor(1), new SimplePriceProcessor(1), new SimplePriceProcessor(1)
+        };
+        var throttler = new PriceThrottler(new ThrottlerSettings().setThrottlingStrategyFactory(RoundRobinThrottling::new));
+
+        throttler.subscribe(listeners[0]);
+        throttler.subscribe(listeners[1], LatestWinsThrottling::new);
+        throttler.subscribe(listeners[2],
+                () -> new WeightedPriorityThrottling(Map.of("EURUSD", 5.0), 1.0, throttler.getPairRegistry()));
+
+        // Act
+        for (int i = 0; i < 100; i++) {
+            for (var price : prices.entrySet()) {
+                throttler.onPrice(price.getKey(), price.getValue() + 100 - i);
+            }
+        }
+
+        for (var price : prices.entrySet()) {
+            throttler.onPrice(price.getKey(), price.getValue());
+        }
+
+        for (var listener : listeners) {
+            listener.awaitProcessedPrices(prices, AWAIT_TIMEOUT_MILLIS);
+        }
+
+        throttler.close();
+
+        // Assert
+        for (var listener : listeners) {
+            assertEquals(prices, listener.getProcessedPrices());
+        }
+    }
+
+    @Test
+    @DisplayName("Delivery rate of frequent pair is limited while rarely changing pair goes out immediately")
+    public void theFrequentPairShouldBeCoalescedWithinDeliveryInterval() {
+        // Arrange
+        final long intervalMillis = 500;
+
+        var firstPrices = new HashMap<String, Double>();
+        firstPrices.put("EURUSD", 1.0);
+
+        var listener = SimplePriceProcessor.constructWithoutDelayInProcessing();
+        var throttler = new PriceThrottler();
+
+        throttler.subscribe(listener, new SubscriptionSettings().setMinDeliveryIntervalMillis(intervalMillis));
+        throttler.onPrice("EURUSD", 1.0);
+        listener.awaitProcessedPrices(firstPrices, AWAIT_TIMEOUT_MILLIS);
+
+        // Act
+        long startedNanos = System.nanoTime();
+
+        for (int i = 1; i <= 100; i++) {
+            throttler.onPrice("EURUSD", 1.0 + i);
+        }
+
+        throttler.onPrice("EURRUB", 81.24);
+
+        var rarePrices = new HashMap<>(firstPrices);
+        rarePrices.put("EURRUB", 81.24);
+        listener.awaitProcessedPrices(rarePrices, AWAIT_TIMEOUT_MILLIS);
+        long rareDeliveredMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedNanos);
+
+        var lastPrices = new HashMap<>(rarePrices);
+        lastPrices.put("EURUSD", 101.0);
+        listener.awaitProcessedPrices(lastPrices, AWAIT_TIMEOUT_MILLIS);
+
+        var metrics = throttler.getMetrics();
+        throttler.close();
+
+        // Assert
+        assertEquals(lastPrices, listener.getProcessedPrices());
+        assertTrue(rareDeliveredMillis < intervalMillis);
+
+        for (var pairMetrics : metrics.getPairs()) {
+            var expectedDeliveries = pairMetrics.getCcyPair().equals("EURUSD") ? 2 : 1;
+
+            assertEquals(expectedDeliveries, pairMetrics.getDeliveredPrices());
+        }
+    }
+
+    @Test
+    @DisplayName("Subscriber is reclassified as its processing time changes")
+    public void theSubscriberShouldBeMovedBackToSharedWorkerWhenItBecomesFast() {
+        // Arrange
+        var listener = new SwitchingPriceProcessor();
+        var throttler = new PriceThrottler(2, 5);
+
+        listener.setPauseInProcessing(20);
+        throttler.subscribe(listener);
+
+        // Act
+        int callsCount = 0;
+
+        for (; callsCount < 3; callsCount++) {
+            throttler.onPrice("EURUSD", callsCount);
+            listener.awaitCallsCount(callsCount + 1, AWAIT_TIMEOUT_MILLIS);
+        }
+
+        var slowThreadName = listener.getLastThreadName();
+        var slowTier = throttler.getMetrics().getSubscribers().get(0).getTier();
+
+        listener.setPauseInProcessing(0);
+
+        for (; callsCount < 100; callsCount++) {
+            throttler.onPrice("EURUSD", callsCount);
+            listener.awaitCallsCount(callsCount + 1, AWAIT_TIMEOUT_MILLIS);
+        }
+
+        var fastThreadName = listener.getLastThreadName();
+        var fastTier = throttler.getMetrics().getSubscribers().get(0).getTier();
+
+        throttler.close();
+
+        // Assert
+        assertTrue(slowThreadName.startsWith("price-throttler-slow-"), slowThreadName);
+        assertEquals(SubscriberTier.SLOW, slowTier);
+        assertTrue(fastThreadName.startsWith("price-throttler-worker-"), fastThreadName);
+        assertEquals(SubscriberTier.FAST, fastTier);
+    }
+
+    @Test
+    @DisplayName("Subscribers waiting for prices by their own strategies get the last prices")
+    public void subscribersWithWaitStrategiesShouldGetLastPrices() {
+        // Arrange
+        var prices = new HashMap<String, Double>();
+
+        prices.put("EURUSD", 6.28);
+        prices.put("EURRUB", 81.24);
+
+        var waitStrategies = new WaitStrategy[] {
+                WaitStrategies.busySpin(),
+                WaitStrategies.spinThenYield(100),
+                WaitStrategies.spinThenPark(100, 1, TimeUnit.MILLISECONDS),
+                WaitStrategies.blocking()
+        };
+        var listeners = new SimplePriceProcessor[waitStrategies.length];
+        var throttler = new PriceThrottler();
+
+        for (int i = 0; i < waitStrategies.length; i++) {
+            listeners[i] = SimplePriceProcessor.constructWithoutDelayInProcessing();
+            throttler.subscribe(listeners[i], new SubscriptionSettings().setWaitStrategy(waitStrategies[i]));
+        }
+
+        // Act
+        for (int i = 0; i < 1_000; i++) {
+            throttler.onPrice("EURUSD", i);
+
+            if (i % 100 == 0) {
+                Thread.yield();
+            }
+        }
+
+        for (var price : prices.entrySet()) {
+            throttler.onPrice(price.getKey(), price.getValue());
+        }
+
+        for (var listener : listeners) {
+            listener.awaitProcessedPrices(prices, AWAIT_TIMEOUT_MILLIS);
+        }
+
+        throttler.close();
+
+        // Assert
+        for (var listener : listeners) {
+            assertEquals(prices, listener.getProcessedPrices());
+        }
+    }
+
+    @Test
+    @DisplayName("Flow subscriber takes prices on its demand and the latest prices are conflated while there is no demand")
+    public void flowSubscriberShouldTakeLatestPricesOnDemand() throws InterruptedException {
+        // Arrange
+        var subscriber = new SimplePriceSubscriber();
+        var throttler = new PriceThrottler();
+
+        throttler.toPublisher().subscribe(subscriber);
+
+        // Act
+        for (int i = 1; i <= 1_000; i++) {
+            throttler.onPrice("EURUSD", i);
+        }
+
+        throttler.onPrice("EURRUB", 81.24);
+        Thread.sleep(50);
+
+        var receivedWithoutDemand = subscriber.getReceivedPrices().size();
+
+        subscriber.request(10);
+        subscriber.awaitReceivedPrices(2, AWAIT_TIMEOUT_MILLIS);
+        Thread.sleep(50);
+
+        throttler.close();
+
+        // Assert
+        assertEquals(0, receivedWithoutDemand);
+        assertEquals(2, subscriber.getReceivedPrices().size());
+        assertTrue(subscriber.getReceivedPrices().contains(new CurrencyPairPrice("EURUSD", 1_000)));
+        assertTrue(subscriber.getReceivedPrices().contains(new CurrencyPairPrice("EURRUB", 81.24)));
+        assertTrue(subscriber.isCompleted());
+    }
+
+    @Test
+    @DisplayName("Flow subscriber gets no more prices than requested and nothing after cancel")
+    public void flowSubscriberShouldNotGetMorePricesThanRequested() throws InterruptedException {
+        // Arrange
+        var subscriber = new SimplePriceSubscriber();
+        var throttler = new PriceThrottler();
+
+        throttler.toPublisher().subscribe(subscriber);
+        subscriber.request(1);
+
+        // Act
+        throttler.onPrice("EURUSD", 6.28);
+        throttler.onPrice("EURRUB", 81.24);
+        subscriber.awaitReceivedPrices(1, AWAIT_TIMEOUT_MILLIS);
+        Thread.sleep(50);
+
+        var receivedOnDemand = subscriber.getReceivedPrices().size();
+
+        subscriber.cancel();
+        subscriber.request(1);
+        throttler.onPrice("USDJPY", 110.5);
+        Thread.sleep(50);
+
+        throttler.close();
+
+        // Assert
+        assertEquals(1, receivedOnDemand);
+        assertEquals(1, subscriber.getReceivedPrices().size());
+        assertFalse(subscriber.isCompleted());
+    }
+
+    @Test
+    @DisplayName("Flow subscriber closed while taking a price is completed after the price is taken")
+    public void flowSubscriberShouldBeCompletedAfterPriceInProgress() throws InterruptedException {
+        // Arrange
+        var subscriber = new GatedPriceSubscriber(false);
+        var throttler = new PriceThrottler();
+
+        throttler.toPublisher().subscribe(subscriber);
+        subscriber.request(Long.MAX_VALUE);
+
+        throttler.onPrice("EURUSD", 6.28);
+        assertTrue(subscriber.awaitNextStarted(AWAIT_TIMEOUT_MILLIS));
+
+        // Act
+        var closingThread = new Thread(throttler::close);
+        closingThread.start();
+        closingThread.join(AWAIT_TIMEOUT_MILLIS);
+
+        var completedBeforeTaken = subscriber.isCompleted();
+
+        subscriber.open();
+        var completed = subscriber.awaitCompleted(AWAIT_TIMEOUT_MILLIS);
+
+        // Assert
+        assertFalse(closingThread.isAlive());
+        assertFalse(completedBeforeTaken);
+        assertTrue(completed);
+        assertFalse(subscriber.isCompletedInNext());
+    }
+
+    @Test
+    @DisplayName("Flow subscriber requesting no prices while taking a price gets the only error after the price is taken")
+    public void flowSubscriberShouldGetErrorAfterPriceInProgress() throws InterruptedException {
+        // Arrange
+        var subscriber = new GatedPriceSubscriber(false);
+        var throttler = new PriceThrottler();
+
+        throttler.toPublisher().subscribe(subscriber);
+        subscriber.request(Long.MAX_VALUE);
+
+        throttler.onPrice("EURUSD", 6.28);
+        assertTrue(subscriber.awaitNextStarted(AWAIT_TIMEOUT_MILLIS));
+
+        // Act
+        subscriber.request(0);
+        var failedBeforeTaken = subscriber.getError() != null;
+
+        subscriber.open();
+        var failed = subscriber.awaitFailed(AWAIT_TIMEOUT_MILLIS);
+
+        throttler.close();
+
+        // Assert
+        assertFalse(failedBeforeTaken);
+        assertTrue(failed);
+        assertFalse(subscriber.isFailedInNext());
+        assertTrue(subscriber.getError() instanceof IllegalArgumentException);
+        assertEquals(1, subscriber.getTerminalSignalsCount());
+        assertFalse(subscriber.isCompleted());
+    }
+
+    @Test
+    @DisplayName("Flow subscriber requesting no prices gets the error and is unsubscribed")
+    public void flowSubscriberRequestingNoPricesShouldGetError() throws InterruptedException {
+        // Arrange
+        var subscriber = new GatedPriceSubscriber(false);
+        var throttler = new PriceThrottler(new ThrottlerSettings().setMetricsEnabled(true));
+
+        throttler.toPublisher().subscribe(subscriber);
+
+        // Act
+        subscriber.request(-1);
+        var failed = subscriber.awaitFailed(AWAIT_TIMEOUT_MILLIS);
+        var subscribersMetrics = throttler.getMetrics().getSubscribers();
+
+        throttler.close();
+
+        // Assert
+        assertTrue(failed);
+        assertTrue(subscriber.getError() instanceof IllegalArgumentException);
+        assertTrue(subscribersMetrics.isEmpty());
+        assertEquals(1, subscriber.getTerminalSignalsCount());
+    }
+
+    @Test
+    @DisplayName("Flow subscriber which cancels the subscription while taking a price is not interrupted")
+    public void flowSubscriberCancellingFromOnNextShouldNotBeInterrupted() throws InterruptedException {
+        // Arrange
+        var subscriber = new GatedPriceSubscriber(true);
+        var throttler = new PriceThrottler(new ThrottlerSettings()
+                .setDeliveryMode(DeliveryMode.VIRTUAL_THREAD_PER_SUBSCRIBER));
+
+        throttler.toPublisher().subscribe(subscriber);
+        subscriber.open();
+        subscriber.request(Long.MAX_VALUE);
+
+        // Act
+        throttler.onPrice("EURUSD", 6.28);
+        var nextStarted = subscriber.awaitNextStarted(AWAIT_TIMEOUT_MILLIS);
+        Thread.sleep(50);
+
+        throttler.close();
+
+        // Assert
+        assertTrue(nextStarted);
+        assertFalse(subscriber.isInterruptedByCancel());
+        assertFalse(subscriber.isCompleted());
+    }
+
+    @Test
+    @DisplayName("Subscribers split over fan-out shards get the last prices")
+    public void subscribersOfFanOutShardsShouldGetLastPrices() {
+        // Arrange
+        var prices = new HashMap<String, Double>();
+
+        prices.put("EURUSD", 1000d);
+        prices.put("EURRUB", 81.24);
+
+        final int LISTENERS_COUNT = 10;
+        var listeners = new SimplePriceProcessor[LISTENERS_COUNT];
+        var throttler = new PriceThrottler(new ThrottlerSettings()
+                .setIngestMode(IngestMode.SHARDED_FAN_OUT)
+                .setFanOutShardsCount(4)
+                .setPriceBoardJournalCapacity(16));
+
+        for (int i = 0; i < LISTENERS_COUNT; i++) {
+            listeners[i] = SimplePriceProcessor.constructWithoutDelayInProcessing();
+            throttler.subscribe(listeners[i]);
+        }
+
+        throttler.unsubscribe(listeners[0]);
+
+        // Act
+        for (int i = 1; i <= 1_000; i++) {
+            throttler.onPrice("EURUSD", i);
+        }
+
+        throttler.onPrice("EURRUB", 81.24);
+
+        for (int i = 1; i < LISTENERS_COUNT; i++) {
+            listeners[i].awaitProcessedPrices(prices, AWAIT_TIMEOUT_MILLIS);
+        }
+
+        throttler.close();
+
+        // Assert
+        assertTrue(listeners[0].getProcessedPrices().isEmpty());
+
+        for (int i = 1; i < LISTENERS_COUNT; i++) {
+            assertEquals(prices, listeners[i].getProcessedPrices());
+        }
+    }
+
+    @Test
+    @DisplayName("Subscriber attached later gets the latest price of every pair at once")
+    public void laterSubscriberShouldGetLatestPrices() {
+        for (var ingestMode : IngestMode.values()) {
+            // Arrange
+            var prices = new HashMap<String, Double>();
+
+            prices.put("EURUSD", 1000d);
+            prices.put("EURRUB", 81.24);
+            prices.put("USDJPY", 110.5);
+
+            var earlyListener = SimplePriceProcessor.constructWithoutDelayInProcessing();
+            var lateListener = SimplePriceProcessor.constructWithoutDelayInProcessing();
+            var throttler = new PriceThrottler(new ThrottlerSettings()
+                    .setIngestMode(ingestMode)
+                    .setFanOutShardsCount(2)
+                    .setSnapshotOnSubscribe(true));
+
+            throttler.subscribe(earlyListener);
+            throttler.onPrice("EURRUB", 81.24);
+
+            for (int i = 1; i <= 1_000; i++) {
+                throttler.onPrice("EURUSD", i);
+            }
+
+            earlyListener.awaitProcessedPrices(Map.of("EURUSD", 1000d, "EURRUB", 81.24), AWAIT_TIMEOUT_MILLIS);
+
+            // Act
+            throttler.subscribe(lateListener);
+            throttler.onPrice("USDJPY", 110.5);
+
+            lateListener.awaitProcessedPrices(prices, AWAIT_TIMEOUT_MILLIS);
+            throttler.close();
+
+            // Assert
+            assertEquals(prices, lateListener.getProcessedPrices(), ingestMode.toString());
+        }
+    }
+
+    @Test
+    @DisplayName("Subscribers seeded by the fan-out thread as they join get the latest prices")
+    public void subscribersSeededOnJoinShouldGetLatestPrices() {
+        // Arrange
+        var listeners = new SimplePriceProcessor[100];
+        var throttler = new PriceThrottler(new ThrottlerSettings()
+                .setIngestMode(IngestMode.SHARDED_FAN_OUT)
+                .setFanOutShardsCount(2)
+                .setSnapshotOnSubscribe(true));
+
+        throttler.onPrice("EURUSD", 6.28);
+
+        // Act
+        for (int i = 0; i < listeners.length; i++) {
+            listeners[i] = SimplePriceProcessor.constructWithoutDelayInProcessing();
+            throttler.subscribe(listeners[i]);
+        }
+
+        for (var listener : listeners) {
+            listener.awaitProcessedPrices(Map.of("EURUSD", 6.28), AWAIT_TIMEOUT_MILLIS);
+        }
+
+        throttler.close();
+
+        // Assert
+        for (var listener : listeners) {
+            assertEquals(Map.of("EURUSD", 6.28), listener.getProcessedPrices());
+        }
+    }
+
+    @Test
+    @DisplayName("Restarted throttler seeds the subscribers with the latest prices of the previous session")
+    public void restartedThrottlerShouldRestoreLatestPrices(@TempDir Path tempDir) {
+        for (var ingestMode : IngestMode.values()) {
+            // Arrange
+            var prices = new HashMap<String, Double>();
+
+            prices.put("EURUSD", 1000d);
+            prices.put("EURRUB", 81.24);
+
+            var settings = new ThrottlerSettings()
+                    .setIngestMode(ingestMode)
+                    .setFanOutShardsCount(2)
+                    .setSnapshotOnSubscribe(true)
+                    .setPriceJournalPath(tempDir.resolve(ingestMode + ".journal"));
+            var throttler = new PriceThrottler(settings);
+
+            throttler.onPrice("EURRUB", 81.24);
+
+            for (int i = 1; i <= 1_000; i++) {
+                throttler.onPrice("EURUSD", i);
+            }
+
+            throttler.close();
+
+            var listener = SimplePriceProcessor.constructWithoutDelayInProcessing();
+
+            // Act
+            var restartedThrottler = new PriceThrottler(settings);
+            restartedThrottler.subscribe(listener);
+
+            listener.awaitProcessedPrices(prices, AWAIT_TIMEOUT_MILLIS);
+            restartedThrottler.close();
+
+            // Assert
+            assertEquals(prices, listener.getProcessedPrices(), ingestMode.toString());
+        }
+    }
+
+    @Test
+    @DisplayName("Restarted throttler without the snapshot on subscribe delivers the prices ticked after the restart only")
+    public void restartedThrottlerWithoutSnapshotShouldNotSeedRestoredPrices(@TempDir Path tempDir) throws InterruptedException {
+        for (var ingestMode : IngestMode.values()) {
+            // Arrange
+            var settings = new ThrottlerSettings()
+                    .setIngestMode(ingestMode)
+                    .setFanOutShardsCount(2)
+                    .setPriceJournalPath(tempDir.resolve(ingestMode + ".journal"));
+            var throttler = new PriceThrottler(settings);
+
+            throttler.onPrice("EURRUB", 81.24);
+            throttler.onPrice("EURUSD", 6.28);
+            throttler.close();
+
+            var listener = SimplePriceProcessor.constructWithoutDelayInProcessing();
+
+            // Act
+            var restartedThrottler = new PriceThrottler(settings);
+            restartedThrottler.subscribe(listener);
+            restartedThrottler.onPrice("USDJPY", 110.5);
+
+            listener.awaitProcessedPrices(Map.of("USDJPY", 110.5), AWAIT_TIMEOUT_MILLIS);
+            Thread.sleep(50);
+            restartedThrottler.close();
+
+            // Assert
+            assertEquals(Map.of("USDJPY", 110.5), listener.getProcessedPrices(), ingestMode.toString());
+        }
+    }
+
+    @Test
+    @DisplayName("Slow subscriber in another process gets the last prices over the loopback socket")
+    public void remoteSubscriberShouldGetLastPricesOverSocket() throws IOException, InterruptedException {
+        // Arrange
+        var prices = new HashMap<String, Double>();
+
+        prices.put("EURUSD", 1000d);
+        prices.put("EURRUB", 81.24);
+
+        var listener = new SimplePriceProcessor(1);
+        var throttler = new PriceThrottler();
+        var server = PriceSocketServer.open(throttler, new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+        var channel = SocketChannel.open(server.getLocalAddress());
+        var reader = new PriceChannelReader(channel);
+        var readerThread = new Thread(() -> {
+            try {
+                while (reader.read(listener)) {
+                    // reads till the server closes the connection
+                }
+            } catch (IOException e) {
+                // the connection is closed by the test
+            }
+        });
+
+        readerThread.start();
+
+        while (throttler.getMetrics().getSubscribers().isEmpty()) {
+            Thread.sleep(1);
+        }
+
+        // Act
+        throttler.onPrice("EURRUB", 81.24);
+
+        for (int i = 1; i <= 1_000; i++) {
+            throttler.onPrice("EURUSD", i);
+        }
+
+        listener.awaitProcessedPrices(prices, AWAIT_TIMEOUT_MILLIS);
+        server.close();
+        readerThread.join(AWAIT_TIMEOUT_MILLIS);
+        channel.close();
+        throttler.close();
+
+        // Assert
+        assertEquals(prices, listener.getProcessedPrices());
+        assertFalse(readerThread.isAlive());
+    }
+
+    @Test
+    @DisplayName("Slow subscriber skips the price which waited longer than its staleness budget")
+    public void stalePriceShouldBeSkippedWithoutDelivery() throws InterruptedException {
+        // Arrange
+        var listener = new SimplePriceProcessor(200);
+        var throttler = new PriceThrottler();
+
+        throttler.subscribe(listener, new SubscriptionSettings().setMaxPriceAgeMillis(50));
+
+        // Act
+        throttler.onPrice("EURUSD", 1);
+        Thread.sleep(50);
+        throttler.onPrice("EURUSD", 2);
+
+        listener.awaitProcessedPrices(Map.of("EURUSD", 1d), AWAIT_TIMEOUT_MILLIS);
+        Thread.sleep(100);
+
+        var metrics = throttler.getMetrics().getSubscribers().get(0);
+        throttler.close();
+
+        // Assert
+        assertEquals(Map.of("EURUSD", 1d), listener.getProcessedPrices());
+        assertEquals(1, metrics.getDeliveredPrices());
+        assertEquals(1, metrics.getSkippedPrices());
+    }
+
+    @Test
+    @DisplayName("Staleness budget of subscriber turns the stamping of ticks on while the metrics are disabled")
+    public void stalePriceShouldBeSkippedWithMetricsDisabled() throws InterruptedException {
+        // Arrange
+        var listener = new SimplePriceProcessor(200);
+        var throttler = new PriceThrottler(new ThrottlerSettings().setMetricsEnabled(false));
+
+        throttler.subscribe(listener, new SubscriptionSettings().setMaxPriceAgeMillis(50));
+
+        // Act
+        throttler.onPrice("EURUSD", 1);
+        Thread.sleep(50);
+        throttler.onPrice("EURUSD", 2);
+
+        listener.awaitProcessedPrices(Map.of("EURUSD", 1d), AWAIT_TIMEOUT_MILLIS);
+        Thread.sleep(300);
+        throttler.close();
+
+        // Assert
+        assertEquals(Map.of("EURUSD", 1d), listener.getProcessedPrices());
+    }
+
+    @Test
+    @DisplayName("Subscriber which fails to process a price still gets the next one on the shared workers")
+    public void failedSubscriberShouldGetNextPriceOnSharedWorkers() {
+        assertNextPriceDeliveredAfterFailure(DeliveryMode.SHARED_WORKERS);
+    }
+
+    @Test
+    @DisplayName("Subscriber which fails to process a price still gets the next one on its own thread")
+    public void failedSubscriberShouldGetNextPriceOnThreadPerSubscriber() {
+        assertNextPriceDeliveredAfterFailure(DeliveryMode.VIRTUAL_THREAD_PER_SUBSCRIBER);
+    }
+
+    private static void assertNextPriceDeliveredAfterFailure(DeliveryMode deliveryMode) {
+        // Arrange
+        var listener = new FailingPriceProcessor();
+        var throttler = new PriceThrottler(new ThrottlerSettings().setDeliveryMode(deliveryMode));
+
+        throttler.subscribe(listener);
+
+        // Act
+        throttler.onPrice("EURUSD", 6.28);
+        listener.awaitFailure(AWAIT_TIMEOUT_MILLIS);
+
+        throttler.onPrice("EURRUB", 81.24);
+        listener.awaitProcessedPrice("EURRUB", AWAIT_TIMEOUT_MILLIS);
+        throttler.close();
+
+        // Assert
+        assertTrue(listener.hasFailed());
+        assertEquals(Map.of("EURRUB", 81.24), listener.getProcessedPrices());
+    }
+}
@@ -0,0 +1,64 @@
+package com.price.processor.throttler;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RoundRobinThrottlingTest {
+
+    @Test
+    public void pendingPairsShouldBePoppedInRoundRobinOrder() {
+        // Arrange
+        var strategy = new RoundRobinThrottling();
+        var actual = new MutableCurrencyPairPrice();
+
+        strategy.pushItem(3, 0.30);
+        strategy.pushItem(200, 2.00);
+        strategy.pushItem(70, 0.70);
+        strategy.pushItem(3, 0.31);
+
+        // Act & Assert
+        assertEquals(3, strategy.size());
+        assertTrue(strategy.popItem(actual));
+        assertEquals(3, actual.getPairId());
+        assertEquals(0.31, actual.getRate());
+
+        strategy.pushItem(3, 0.32);
+
+        assertTrue(strategy.popItem(actual));
+        assertEquals(70, actual.getPairId());
+        assertTrue(strategy.popItem(actual));
+        assertEquals(200, actual.getPairId());
+        assertTrue(strategy.popItem(actual));
+        assertEquals(3, actual.getPairId());
+        assertEquals(0.32, actual.getRate());
+
+        assertTrue(strategy.isEmpty());
+        assertFalse(strategy.popItem(actual));
+    }
+
+    @Test
+    public void frequentPairShouldNotOvertakeOthersInRound() {
+        // Arrange
+        var strategy = new RoundRobinThrottling();
+        var actual = new MutableCurrencyPairPrice();
+
+        for (int i = 0; i < 10; i++) {
+            strategy.pushItem(i, i);
+        }
+
+        // Act
+        var delivered = new boolean[10];
+
+        for (int i = 0; i < 10; i++) {
+            strategy.popItem(actual);
+            delivered[actual.getPairId()] = true;
+            strategy.pushItem(0, i);
+        }
+
+        // Assert
+        for (var pairDelivered : delivered) {
+            assertTrue(pairDelivered);
+        }
+    }
+}
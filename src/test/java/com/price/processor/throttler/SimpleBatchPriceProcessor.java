@@ -0,0 +1,95 @@
+package com.price.processor.throttler;
+
+import com.price.processor.PriceProcessor;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+
+/**
+ *  BatchPriceProcessor implementation for testing purpose
+ */
+final class SimpleBatchPriceProcessor implements BatchPriceProcessor {
+
+    private final long sleepInMilli;
+
+    private final ConcurrentHashMap<String, Double> processedPrices = new ConcurrentHashMap<>();
+    private volatile int batchesCount;
+    private volatile int maxBatchSize;
+    private volatile int singlePricesCount;
+
+    /**
+     * @param pauseInProcessingInMilliseconds defines the delay in milliseconds to process batch
+     */
+    public SimpleBatchPriceProcessor(long pauseInProcessingInMilliseconds) {
+        sleepInMilli = pauseInProcessingInMilliseconds;
+    }
+
+    @Override
+    public void onPrices(PriceBatch prices) {
+        if (sleepInMilli != 0) {
+            try {
+                Thread.sleep(sleepInMilli);
+            } catch (InterruptedException e) {
+                // left empty on purpose
+            }
+        }
+
+        for (int i = 0; i < prices.size(); i++) {
+            processedPrices.put(prices.getCcyPair(i), prices.getRate(i));
+        }
+
+        batchesCount++;
+        maxBatchSize = Math.max(maxBatchSize, prices.size());
+    }
+
+    @Override
+    public void onPrice(String ccyPair, double rate) {
+        singlePricesCount++;
+        processedPrices.put(ccyPair, rate);
+    }
+
+    @Override
+    public void subscribe(PriceProcessor priceProcessor) {
+        //Left it empty on purpose
+    }
+
+    @Override
+    public void unsubscribe(PriceProcessor priceProcessor) {
+        //Left it empty on purpose
+    }
+
+    public Map<String, Double> getProcessedPrices() {
+        return processedPrices;
+    }
+
+    public int getBatchesCount() {
+        return batchesCount;
+    }
+
+    public int getMaxBatchSize() {
+        return maxBatchSize;
+    }
+
+    public int getSinglePricesCount() {
+        return singlePricesCount;
+    }
+
+    /**
+     * Waits till the processed prices settle to the expected ones
+     * @param expectedPrices the prices to wait for
+     * @param timeoutInMilliseconds the time to give up waiting
+     */
+    public void awaitProcessedPrices(Map<String, Double> expectedPrices, long timeoutInMilliseconds) {
+        long deadline = System.currentTimeMillis() + timeoutInMilliseconds;
+
+        while (!expectedPrices.equals(processedPrices) && System.currentTimeMillis() < deadline) {
+            try {
+                Thread.sleep(1);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+}
@@ -59,4 +59,23 @@ final class SimplePriceProcessor implements PriceProcessor {
     public Map<String, Double> getProcessedPrices() {
         return processedPrices;
     }
+
+    /**
+     * Waits till the processed prices settle to the expected ones
+     * The intermediate prices might be processed on the way as a price is delivered as soon as it comes
+     * @param expectedPrices the prices to wait for
+     * @param timeoutInMilliseconds the time to give up waiting
+     */
+    public void awaitProcessedPrices(Map<String, Double> expectedPrices, long timeoutInMilliseconds) {
+        long deadline = System.currentTimeMillis() + timeoutInMilliseconds;
+
+        while (!expectedPrices.equals(processedPrices) && System.currentTimeMillis() < deadline) {
+            try {
+                Thread.sleep(1);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
 }
@@ -0,0 +1,70 @@
+package com.price.processor.throttler;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Flow;
+
+/**
+ *  Flow.Subscriber implementation for testing purpose
+ */
+final class SimplePriceSubscriber implements Flow.Subscriber<CurrencyPairPrice> {
+
+    private final List<CurrencyPairPrice> receivedPrices = new CopyOnWriteArrayList<>();
+
+    private volatile Flow.Subscription subscription;
+    private volatile boolean completed;
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        this.subscription = subscription;
+    }
+
+    @Override
+    public void onNext(CurrencyPairPrice item) {
+        receivedPrices.add(item);
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        //Left it empty on purpose
+    }
+
+    @Override
+    public void onComplete() {
+        completed = true;
+    }
+
+    public void request(long n) {
+        subscription.request(n);
+    }
+
+    public void cancel() {
+        subscription.cancel();
+    }
+
+    public List<CurrencyPairPrice> getReceivedPrices() {
+        return receivedPrices;
+    }
+
+    public boolean isCompleted() {
+        return completed;
+    }
+
+    /**
+     * Waits till the number of received prices reaches the expected one
+     * @param expectedCount the number of prices to wait for
+     * @param timeoutInMilliseconds the time to give up waiting
+     */
+    public void awaitReceivedPrices(int expectedCount, long timeoutInMilliseconds) {
+        long deadline = System.currentTimeMillis() + timeoutInMilliseconds;
+
+        while (receivedPrices.size() < expectedCount && System.currentTimeMillis() < deadline) {
+            try {
+                Thread.sleep(1);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+}
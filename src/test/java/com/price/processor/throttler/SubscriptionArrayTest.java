@@ -0,0 +1,42 @@
+package com.price.processor.throttler;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SubscriptionArrayTest {
+
+    @Test
+    public void subscriptionsShouldBeAddedOnceAndRemoved() {
+        // Arrange
+        var array = new SubscriptionArray();
+        var first = newSubscription();
+        var second = newSubscription();
+        var before = array.get();
+
+        // Act
+        var firstAdded = array.add(first);
+        var secondAdded = array.add(second);
+        var duplicateAdded = array.add(new Subscription(first.getProcessor(), first.getQueue(), null));
+        var afterAdd = array.get();
+        var removed = array.remove(first.getProcessor());
+        var removedAgain = array.remove(first.getProcessor());
+
+        // Assert
+        assertTrue(firstAdded);
+        assertTrue(secondAdded);
+        assertFalse(duplicateAdded);
+        assertEquals(0, before.length);
+        assertArrayEquals(new Subscription[] {first, second}, afterAdd);
+        assertSame(first, removed);
+        assertNull(removedAgain);
+        assertArrayEquals(new Subscription[] {second}, array.get());
+        assertArrayEquals(new Subscription[] {second}, array.clear());
+        assertEquals(0, array.get().length);
+    }
+
+    private static Subscription newSubscription() {
+        return new Subscription(SimplePriceProcessor.constructWithoutDelayInProcessing(),
+                new CurrencyPairPriceQueue(new DeliveryFreqRankThrottling()), null);
+    }
+}
@@ -0,0 +1,69 @@
+package com.price.processor.throttler;
+
+import com.price.processor.PriceProcessor;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+
+/**
+ *  PriceProcessor implementation for testing purpose which delay in processing can be changed on the fly
+ */
+final class SwitchingPriceProcessor implements PriceProcessor {
+
+    private final AtomicInteger callsCount = new AtomicInteger();
+    private volatile long sleepInMilli;
+    private volatile String lastThreadName;
+
+    /**
+     * @param pauseInProcessingInMilliseconds defines the delay in milliseconds to process request
+     */
+    public void setPauseInProcessing(long pauseInProcessingInMilliseconds) {
+        sleepInMilli = pauseInProcessingInMilliseconds;
+    }
+
+    @Override
+    public void onPrice(String ccyPair, double rate) {
+        if (sleepInMilli != 0) {
+            try {
+                Thread.sleep(sleepInMilli);
+            } catch (InterruptedException e) {
+                // left empty on purpose
+            }
+        }
+
+        lastThreadName = Thread.currentThread().getName();
+        callsCount.incrementAndGet();
+    }
+
+    @Override
+    public void subscribe(PriceProcessor priceProcessor) {
+        //Left it empty on purpose
+    }
+
+    @Override
+    public void unsubscribe(PriceProcessor priceProcessor) {
+        //Left it empty on purpose
+    }
+
+    public String getLastThreadName() {
+        return lastThreadName;
+    }
+
+    /**
+     * Waits till the number of calls reaches the expected one
+     * @param expectedCallsCount the number of calls to wait for
+     * @param timeoutInMilliseconds the time to give up waiting
+     */
+    public void awaitCallsCount(int expectedCallsCount, long timeoutInMilliseconds) {
+        long deadline = System.currentTimeMillis() + timeoutInMilliseconds;
+
+        while (callsCount.get() < expectedCallsCount && System.currentTimeMillis() < deadline) {
+            try {
+                Thread.sleep(1);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.price.processor.throttler;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ThrottlerMetricsTest {
+
+    private static final long AWAIT_TIMEOUT_MILLIS = 5_000;
+    private static final long MAX_METRICS_OVERHEAD_NANOS = 1_000;
+
+    @Test
+    @DisplayName("Metrics show received and delivered prices of subscribers and pairs")
+    public void metricsShouldCountReceivedAndDeliveredPrices() {
+        // Arrange
+        var prices = new HashMap<String, Double>();
+
+        prices.put("EURUSD", 6.28);
+        prices.put("EURRUB", 81.24);
+
+        var listener = new SimplePriceProcessor(20);
+        var throttler = new PriceThrottler();
+
+        throttler.subscribe(listener);
+
+        // Act
+        for (int i = 0; i < 100; i++) {
+            throttler.onPrice("EURUSD", 6.28);
+        }
+
+        throttler.onPrice("EURRUB", 81.24);
+
+        listener.awaitProcessedPrices(prices, AWAIT_TIMEOUT_MILLIS);
+        var metrics = awaitServedMetrics(throttler, AWAIT_TIMEOUT_MILLIS);
+        throttler.close();
+
+        // Assert
+        assertEquals(1, metrics.getSubscribers().size());
+
+        var subscriberMetrics = metrics.getSubscribers().get(0);
+
+        assertEquals(listener, subscriberMetrics.getSubscriber());
+        assertEquals(0, subscriberMetrics.getPendingPrices());
+        assertEquals(101, subscriberMetrics.getReceivedTicks());
+        assertTrue(subscriberMetrics.getDeliveredPrices() >= 2);
+        assertEquals(subscriberMetrics.getDeliveredPrices(), subscriberMetrics.getServiceTime().getTotalCount());
+        assertTrue(subscriberMetrics.getServiceTime().getValueAtPercentile(50) >= 20_000_000L);
+
+        var pairsMetrics = new HashMap<String, PairMetrics>();
+
+        for (var pairMetrics : metrics.getPairs()) {
+            pairsMetrics.put(pairMetrics.getCcyPair(), pairMetrics);
+        }
+
+        assertEquals(prices.keySet(), pairsMetrics.keySet());
+        assertEquals(1.0, pairsMetrics.get("EURRUB").getConflationRatio());
+        assertTrue(pairsMetrics.get("EURUSD").getConflationRatio() > 1.0);
+        assertEquals(pairsMetrics.get("EURUSD").getDeliveredPrices(),
+                pairsMetrics.get("EURUSD").getTickToDelivery().getTotalCount());
+    }
+
+    @Test
+    @DisplayName("Metrics add less than the fixed overhead to onPrice")
+    public void metricsShouldAddBoundedOverheadToOnPrice() {
+        // Arrange
+        var withMetrics = new ThrottlerSettings().setMetricsEnabled(true);
+        var withoutMetrics = new ThrottlerSettings().setMetricsEnabled(false);
+
+        // Act
+        measureOnPriceNanos(withMetrics);
+        measureOnPriceNanos(withoutMetrics);
+
+        long withMetricsNanos = Long.MAX_VALUE;
+        long withoutMetricsNanos = Long.MAX_VALUE;
+
+        for (int i = 0; i < 5; i++) {
+            withMetricsNanos = Math.min(withMetricsNanos, measureOnPriceNanos(withMetrics));
+            withoutMetricsNanos = Math.min(withoutMetricsNanos, measureOnPriceNanos(withoutMetrics));
+        }
+
+        // Assert
+        assertTrue(withMetricsNanos - withoutMetricsNanos < MAX_METRICS_OVERHEAD_NANOS,
+                "onPrice takes " + withMetricsNanos + " ns with metrics and " + withoutMetricsNanos + " ns without");
+    }
+
+    private static ThrottlerMetrics awaitServedMetrics(PriceThrottler throttler, long timeoutInMilliseconds) {
+        long deadline = System.currentTimeMillis() + timeoutInMilliseconds;
+        var metrics = throttler.getMetrics();
+
+        while (!isServed(metrics) && System.currentTimeMillis() < deadline) {
+            try {
+                Thread.sleep(1);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+
+            metrics = throttler.getMetrics();
+        }
+
+        return metrics;
+    }
+
+    private static boolean isServed(ThrottlerMetrics metrics) {
+        for (var subscriberMetrics : metrics.getSubscribers()) {
+            if (subscriberMetrics.getDeliveredPrices() != subscriberMetrics.getServiceTime().getTotalCount()) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private static long measureOnPriceNanos(ThrottlerSettings settings) {
+        final int ticksCount = 200_000;
+        final String[] pairs = {"EURUSD", "EURRUB", "USDJPY", "GBPUSD", "USDCHF"};
+
+        var listener = SimplePriceProcessor.constructWithoutDelayInProcessing();
+
+        try (var throttler = new PriceThrottler(settings)) {
+            throttler.subscribe(listener);
+
+            long startedNanos = System.nanoTime();
+
+            for (int i = 0; i < ticksCount; i++) {
+                throttler.onPrice(pairs[i % pairs.length], i);
+            }
+
+            return (System.nanoTime() - startedNanos) / ticksCount;
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.price.processor.throttler;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TimerWheelTest {
+
+    @Test
+    public void tasksShouldRunNotBeforeTheirDeadlines() throws InterruptedException {
+        // Arrange
+        final int tasksCount = 50;
+        var lateNanos = new ConcurrentLinkedQueue<Long>();
+        var done = new CountDownLatch(tasksCount);
+
+        try (var timerWheel = new TimerWheel(TimeUnit.MILLISECONDS.toNanos(1))) {
+            long nowNanos = System.nanoTime();
+
+            // Act
+            for (int i = 0; i < tasksCount; i++) {
+                // the deadlines cross the wheel a few times
+                long deadlineNanos = nowNanos + TimeUnit.MILLISECONDS.toNanos(i * 31 % 1_500);
+
+                timerWheel.schedule(deadlineNanos, () -> {
+                    lateNanos.add(System.nanoTime() - deadlineNanos);
+                    done.countDown();
+                });
+            }
+
+            var allRan = done.await(10, TimeUnit.SECONDS);
+
+            // Assert
+            assertTrue(allRan);
+
+            for (var late : lateNanos) {
+                assertTrue(late >= 0);
+            }
+        }
+    }
+}
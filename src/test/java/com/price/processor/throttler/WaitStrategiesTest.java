@@ -0,0 +1,38 @@
+package com.price.processor.throttler;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class WaitStrategiesTest {
+
+    @Test
+    public void activeStrategiesShouldNeverPark() {
+        // Arrange
+        var busySpin = WaitStrategies.busySpin();
+        var spinThenYield = WaitStrategies.spinThenYield(10);
+
+        // Act & Assert
+        for (int attempt = 0; attempt < 100; attempt++) {
+            assertEquals(0, busySpin.idle(attempt));
+            assertEquals(0, spinThenYield.idle(attempt));
+        }
+    }
+
+    @Test
+    public void parkingStrategiesShouldParkAfterSpins() {
+        // Arrange
+        var spinThenPark = WaitStrategies.spinThenPark(10, 5, TimeUnit.MILLISECONDS);
+        var blocking = WaitStrategies.blocking();
+
+        // Act & Assert
+        for (int attempt = 0; attempt < 10; attempt++) {
+            assertEquals(0, spinThenPark.idle(attempt));
+        }
+
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(5), spinThenPark.idle(10));
+        assertEquals(WaitStrategy.PARK_UNTIL_SIGNALLED, blocking.idle(0));
+    }
+}
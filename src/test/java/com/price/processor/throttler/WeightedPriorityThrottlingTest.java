@@ -0,0 +1,100 @@
+package com.price.processor.throttler;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class WeightedPriorityThrottlingTest {
+
+    @Test
+    public void pairsShouldBeDeliveredInProportionToWeights() {
+        // Arrange
+        var registry = new CurrencyPairRegistry();
+        var strategy = new WeightedPriorityThrottling(Map.of("EURUSD", 3.0), 1.0, registry);
+        var actual = new MutableCurrencyPairPrice();
+        var eurUsd = registry.getPairId("EURUSD");
+        var eurRub = registry.getPairId("EURRUB");
+
+        strategy.pushItem(eurUsd, 6.28);
+        strategy.pushItem(eurRub, 81.24);
+
+        // Act
+        var deliveredCounts = new int[registry.size()];
+
+        for (int i = 0; i < 400; i++) {
+            assertTrue(strategy.popItem(actual));
+            deliveredCounts[actual.getPairId()]++;
+            strategy.pushItem(actual.getPairId(), actual.getRate());
+        }
+
+        // Assert
+        assertEquals(300, deliveredCounts[eurUsd], 1);
+        assertEquals(100, deliveredCounts[eurRub], 1);
+        assertEquals(2, strategy.size());
+    }
+
+    @Test
+    public void pairWhichHasBecomePendingShouldNotWaitForAccumulatedCredit() {
+        // Arrange
+        var strategy = new WeightedPriorityThrottling(pairId -> pairId == 0 ? 1.0 : 100.0);
+        var actual = new MutableCurrencyPairPrice();
+
+        strategy.pushItem(1, 0.10);
+
+        for (int i = 0; i < 1_000; i++) {
+            strategy.popItem(actual);
+            strategy.pushItem(1, i);
+        }
+
+        // Act
+        strategy.pushItem(0, 0.20);
+
+        var popsTillDelivered = 0;
+
+        do {
+            strategy.popItem(actual);
+            strategy.pushItem(1, 0.10);
+            popsTillDelivered++;
+        } while (actual.getPairId() != 0);
+
+        // Assert
+        assertTrue(popsTillDelivered <= 101);
+    }
+
+    @Test
+    public void notPositiveConfiguredWeightShouldBeRejected() {
+        // Arrange
+        var registry = new CurrencyPairRegistry();
+
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class,
+                () -> new WeightedPriorityThrottling(Map.of("EURUSD", 0.0), 1.0, registry));
+        assertThrows(IllegalArgumentException.class,
+                () -> new WeightedPriorityThrottling(Map.of("EURUSD", 3.0), -1.0, registry));
+    }
+
+    @Test
+    public void notPositiveWeightOfFunctionShouldBeReplacedByDefault() {
+        // Arrange
+        var strategy = new WeightedPriorityThrottling(pairId -> pairId == 0 ? 0 : 1.0);
+        var actual = new MutableCurrencyPairPrice();
+
+        strategy.pushItem(0, 0.10);
+        strategy.pushItem(1, 0.20);
+
+        // Act
+        var deliveredCounts = new int[2];
+
+        for (int i = 0; i < 200; i++) {
+            assertTrue(strategy.popItem(actual));
+            deliveredCounts[actual.getPairId()]++;
+            strategy.pushItem(actual.getPairId(), actual.getRate());
+        }
+
+        // Assert
+        assertEquals(100, deliveredCounts[0], 1);
+        assertEquals(100, deliveredCounts[1], 1);
+    }
+}
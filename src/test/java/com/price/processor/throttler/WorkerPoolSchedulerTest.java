@@ -0,0 +1,37 @@
+package com.price.processor.throttler;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class WorkerPoolSchedulerTest {
+
+    private static final long AWAIT_TIMEOUT_MILLIS = 5_000;
+
+    @Test
+    public void drainMovedToDedicatedLaneWhileClosingShouldDeliverPendingPrice() throws InterruptedException {
+        // Arrange
+        var scheduler = new WorkerPoolScheduler(1, 1);
+        var processor = new GatedPriceProcessor();
+        var queue = new CurrencyPairPriceQueue(new DeliveryFreqRankThrottling());
+        var subscription = new Subscription(processor, queue, scheduler);
+
+        scheduler.register(subscription);
+        queue.offer("EURUSD", 1);
+        subscription.wakeUp();
+
+        assertTrue(processor.awaitCallStarted(AWAIT_TIMEOUT_MILLIS));
+        queue.offer("EURUSD", 2);
+
+        // Act
+        var closingThread = new Thread(scheduler::close);
+        closingThread.start();
+        // the slow call completes once the scheduler is closed, so the drain cannot move to the dedicated lane
+        Thread.sleep(100);
+        processor.open();
+        closingThread.join(AWAIT_TIMEOUT_MILLIS);
+
+        // Assert
+        assertEquals(2, processor.getLastRate());
+    }
+}